@@ -0,0 +1,51 @@
+package tn.rnu.eniso.fwk.scan;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+import tn.rnu.eniso.fwk.scan.core.service.impl.EveBackfillService;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Imports archived EVE files at startup when {@code suricata.backfill.path} is set, e.g.
+ * {@code java -jar app.jar --suricata.backfill.path=/var/log/suricata/archive/eve.json*}.
+ * The application exits once the import is done unless {@code suricata.backfill.exit} is false.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "suricata.backfill.path")
+public class EveBackfillRunner implements ApplicationRunner {
+
+    private final EveBackfillService backfillService;
+    private final ApplicationContext applicationContext;
+
+    @Value("${suricata.backfill.path}")
+    private String path;
+
+    @Value("${suricata.backfill.exit:true}")
+    private boolean exitWhenDone;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        List<Path> files = backfillService.resolveFiles(path);
+        if (files.isEmpty()) {
+            log.warn("No EVE files found for backfill path {}", path);
+        } else {
+            EveBackfillService.BackfillReport report = backfillService.backfill(files);
+            log.info("Backfilled {} alerts from {} lines of {}", report.alerts(), report.lines(), path);
+        }
+
+        if (exitWhenDone) {
+            System.exit(SpringApplication.exit(applicationContext, () -> 0));
+        }
+    }
+}
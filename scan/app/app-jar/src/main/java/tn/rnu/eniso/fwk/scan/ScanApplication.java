@@ -3,8 +3,10 @@ package tn.rnu.eniso.fwk.scan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @ComponentScan(basePackages = {
@@ -13,6 +15,8 @@ import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 })
 @EntityScan("tn.rnu.eniso.fwk.scan.core.infra.model")
 @EnableJpaRepositories("tn.rnu.eniso.fwk.scan.core.dal.repository")
+@EnableScheduling
+@EnableCaching
 public class ScanApplication {
 
     public static void main(String[] args) {
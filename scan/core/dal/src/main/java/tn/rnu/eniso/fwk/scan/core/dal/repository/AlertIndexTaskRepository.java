@@ -0,0 +1,26 @@
+package tn.rnu.eniso.fwk.scan.core.dal.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertIndexTask;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface AlertIndexTaskRepository extends JpaRepository<AlertIndexTask, Long> {
+
+    @Query("SELECT t FROM AlertIndexTask t WHERE t.rejected = false AND t.nextAttempt <= :now"
+            + " ORDER BY t.nextAttempt, t.alertId")
+    List<AlertIndexTask> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    long countByRejected(boolean rejected);
+
+    @Modifying
+    @Query("DELETE FROM AlertIndexTask t WHERE NOT EXISTS (SELECT a FROM Alert a WHERE a.id = t.alertId)")
+    int deleteOrphans();
+}
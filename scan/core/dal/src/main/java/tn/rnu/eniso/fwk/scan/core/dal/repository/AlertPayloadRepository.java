@@ -0,0 +1,18 @@
+package tn.rnu.eniso.fwk.scan.core.dal.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertPayload;
+
+import java.time.LocalDate;
+
+@Repository
+public interface AlertPayloadRepository extends JpaRepository<AlertPayload, Long> {
+
+    @Modifying
+    @Query("DELETE FROM AlertPayload p WHERE p.partitionDay = :day")
+    int deletePartition(@Param("day") LocalDate day);
+}
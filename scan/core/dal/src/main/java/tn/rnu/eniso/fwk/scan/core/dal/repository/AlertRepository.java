@@ -1,54 +1,125 @@
 package tn.rnu.eniso.fwk.scan.core.dal.repository;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import tn.rnu.eniso.fwk.scan.core.infra.model.Alert;
 import tn.rnu.eniso.fwk.scan.core.infra.model.AlertSeverity;
 
+import jakarta.persistence.QueryHint;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
-public interface AlertRepository extends JpaRepository<Alert, Long> {
+public interface AlertRepository extends JpaRepository<Alert, Long>, JpaSpecificationExecutor<Alert>, AlertViewRepository {
 
-    List<Alert> findTop100ByOrderByTimestampDesc();
+    @EntityGraph(attributePaths = "device", type = EntityGraph.EntityGraphType.LOAD)
+    Optional<Alert> findWithDeviceById(Long id);
 
-    Page<Alert> findByOrderByTimestampDesc(Pageable pageable);
+    @EntityGraph(attributePaths = "device", type = EntityGraph.EntityGraphType.LOAD)
+    List<Alert> findAllBy(Pageable pageable);
 
-    List<Alert> findByTimestampBetween(LocalDateTime start, LocalDateTime end);
+    @EntityGraph(attributePaths = "device", type = EntityGraph.EntityGraphType.LOAD)
+    List<Alert> findWithDeviceByIdIn(Collection<Long> ids);
 
     List<Alert> findBySeverity(AlertSeverity severity);
 
-    List<Alert> findBySeverityOrderByTimestampDesc(AlertSeverity severity);
-
-    @Query("SELECT a FROM Alert a WHERE a.sourceIp = :ip OR a.destIp = :ip ORDER BY a.timestamp DESC")
-    List<Alert> findByIpAddress(@Param("ip") String ip);
-
     @Query("SELECT a FROM Alert a WHERE (a.sourceIp = :sourceIp OR a.destIp = :destIp) AND a.timestamp >= :since ORDER BY a.timestamp DESC")
     List<Alert> findByIpAddressAndTimestampAfter(
             @Param("sourceIp") String sourceIp,
             @Param("destIp") String destIp,
             @Param("since") LocalDateTime since);
 
-    long countBySeverity(AlertSeverity severity);
-
-    long countBySeverityAndTimestampAfter(AlertSeverity severity, LocalDateTime after);
+    @Query("SELECT a FROM Alert a WHERE a.id > :after AND a.sourceAddress IS NULL AND a.destAddress IS NULL ORDER BY a.id")
+    List<Alert> findWithoutAddresses(@Param("after") Long after, Pageable limit);
+
+    // Alerts without a document ID are not in Elasticsearch and not waiting to be indexed
+    @Query("SELECT a FROM Alert a WHERE a.id > :after AND a.elasticsearchId IS NULL"
+            + " AND NOT EXISTS (SELECT t FROM AlertIndexTask t WHERE t.alertId = a.id) ORDER BY a.id")
+    List<Alert> findNotIndexed(@Param("after") Long after, Pageable limit);
+
+    @Query("SELECT MIN(a.partitionDay) FROM Alert a")
+    LocalDate findOldestPartitionDay();
+
+    @Modifying
+    @Query("DELETE FROM Alert a WHERE a.partitionDay = :day")
+    int deletePartition(@Param("day") LocalDate day);
+
+    @Modifying
+    @Query("UPDATE Alert a SET a.partitionDay = cast(a.timestamp as LocalDate) WHERE a.partitionDay IS NULL")
+    int fillPartitionDays();
+
+    @Modifying
+    // Legacy alert columns, compared with null taken as empty text
+    @Query(value = "UPDATE alert SET signature_ref_id = :ref WHERE signature_ref_id IS NULL"
+            + " AND COALESCE(generator_id, 0) = :generatorId AND COALESCE(signature_id, 0) = :signatureId"
+            + " AND COALESCE(signature, '') = COALESCE(:signature, '') AND COALESCE(category, '') = COALESCE(:category, '')",
+            nativeQuery = true)
+    int assignSignatureRef(
+            @Param("ref") Long ref,
+            @Param("generatorId") Long generatorId,
+            @Param("signatureId") Long signatureId,
+            @Param("signature") String signature,
+            @Param("category") String category);
 
-    long countByTimestampAfter(LocalDateTime after);
-
-    @Query("SELECT a.category, COUNT(a) FROM Alert a WHERE a.timestamp >= :since GROUP BY a.category ORDER BY COUNT(a) DESC")
-    List<Object[]> countByCategory(@Param("since") LocalDateTime since);
-
-    @Query("SELECT a.sourceIp, COUNT(a) FROM Alert a WHERE a.timestamp >= :since GROUP BY a.sourceIp ORDER BY COUNT(a) DESC")
-    List<Object[]> countBySourceIp(@Param("since") LocalDateTime since);
-
-    @Query("SELECT a.destIp, COUNT(a) FROM Alert a WHERE a.timestamp >= :since GROUP BY a.destIp ORDER BY COUNT(a) DESC")
-    List<Object[]> countByDestIp(@Param("since") LocalDateTime since);
+    long countBySeverity(AlertSeverity severity);
 
-    @Query("SELECT a.signature, COUNT(a) FROM Alert a WHERE a.timestamp >= :since GROUP BY a.signature ORDER BY COUNT(a) DESC")
-    List<Object[]> countBySignature(@Param("since") LocalDateTime since);
+    // Counts below weigh aggregated records by the number of alerts they collapse
+
+    @Query("SELECT COALESCE(SUM(COALESCE(a.count, 1)), 0) FROM Alert a WHERE a.severity = :severity AND a.timestamp > :after")
+    long countBySeverityAndTimestampAfter(@Param("severity") AlertSeverity severity, @Param("after") LocalDateTime after);
+
+    @Query("SELECT COALESCE(SUM(COALESCE(a.count, 1)), 0) FROM Alert a WHERE a.timestamp > :after")
+    long countByTimestampAfter(@Param("after") LocalDateTime after);
+
+    // Grouped by signature dictionary ID; categories and signature texts are resolved from the dictionary
+    @Query("SELECT a.signatureRef.id, SUM(COALESCE(a.count, 1)) FROM Alert a WHERE a.timestamp >= :since"
+            + " GROUP BY a.signatureRef.id ORDER BY SUM(COALESCE(a.count, 1)) DESC")
+    List<Object[]> countBySignatureRef(@Param("since") LocalDateTime since);
+
+    @Query("SELECT a.sourceIp, SUM(COALESCE(a.count, 1)) FROM Alert a WHERE a.timestamp >= :since GROUP BY a.sourceIp ORDER BY SUM(COALESCE(a.count, 1)) DESC")
+    List<Object[]> countBySourceIp(@Param("since") LocalDateTime since, Pageable limit);
+
+    @Query("SELECT a.destIp, SUM(COALESCE(a.count, 1)) FROM Alert a WHERE a.timestamp >= :since GROUP BY a.destIp ORDER BY SUM(COALESCE(a.count, 1)) DESC")
+    List<Object[]> countByDestIp(@Param("since") LocalDateTime since, Pageable limit);
+
+    @Query("SELECT a.sensor, SUM(COALESCE(a.count, 1)) FROM Alert a WHERE a.timestamp >= :since GROUP BY a.sensor ORDER BY SUM(COALESCE(a.count, 1)) DESC")
+    List<Object[]> countBySensor(@Param("since") LocalDateTime since);
+
+    @Query("SELECT COUNT(DISTINCT a.sourceIp), COUNT(DISTINCT a.destIp), COUNT(DISTINCT a.signatureRef.id) FROM Alert a"
+            + " LEFT JOIN a.signatureRef s"
+            + " WHERE a.timestamp >= :start AND a.timestamp < :end AND (:signature IS NULL OR s.signature = :signature)")
+    List<Object[]> countDistinct(
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end,
+            @Param("signature") String signature);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT a FROM Alert a LEFT JOIN FETCH a.device WHERE a.timestamp >= :start AND a.timestamp < :end"
+            + " AND (:severity IS NULL OR a.severity = :severity)"
+            + " AND (:ip IS NULL OR a.sourceIp = :ip OR a.destIp = :ip)"
+            + " ORDER BY a.timestamp, a.id")
+    Stream<Alert> streamForExport(
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end,
+            @Param("severity") AlertSeverity severity,
+            @Param("ip") String ip);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT a.timestamp, a.severity, a.signatureRef.id, a.sourceIp, a.destIp, a.sensor, a.count FROM Alert a WHERE a.timestamp >= :since"
+            + " ORDER BY a.timestamp")
+    Stream<Object[]> streamStatisticsRows(@Param("since") LocalDateTime since);
 }
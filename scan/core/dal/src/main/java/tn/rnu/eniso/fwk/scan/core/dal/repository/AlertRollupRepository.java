@@ -0,0 +1,41 @@
+package tn.rnu.eniso.fwk.scan.core.dal.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertRollup;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertSeverity;
+import tn.rnu.eniso.fwk.scan.core.infra.model.RollupResolution;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AlertRollupRepository extends JpaRepository<AlertRollup, Long> {
+
+    List<AlertRollup> findByResolutionAndBucketStartIn(RollupResolution resolution, Collection<LocalDateTime> bucketStarts);
+
+    Optional<AlertRollup> findFirstByResolutionAndBucketStartBeforeOrderByBucketStart(
+            RollupResolution resolution, LocalDateTime before);
+
+    @Query("SELECT r FROM AlertRollup r WHERE r.resolution = :resolution AND r.bucketStart >= :start AND r.bucketStart < :end")
+    List<AlertRollup> findSlice(
+            @Param("resolution") RollupResolution resolution,
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end);
+
+    // Rollups of every resolution, which never overlap, summed per bucket start, resolution and severity
+    @Query("SELECT r.bucketStart, r.resolution, r.severity, SUM(r.count) FROM AlertRollup r"
+            + " WHERE r.bucketStart >= :start AND r.bucketStart < :end"
+            + " AND (:severity IS NULL OR r.severity = :severity)"
+            + " AND (:category IS NULL OR r.category = :category)"
+            + " GROUP BY r.bucketStart, r.resolution, r.severity")
+    List<Object[]> sumByBucketStart(
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end,
+            @Param("severity") AlertSeverity severity,
+            @Param("category") String category);
+}
@@ -0,0 +1,13 @@
+package tn.rnu.eniso.fwk.scan.core.dal.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertSignature;
+
+import java.util.Optional;
+
+@Repository
+public interface AlertSignatureRepository extends JpaRepository<AlertSignature, Long> {
+
+    Optional<AlertSignature> findByGeneratorIdAndSignatureIdAndTextHash(Long generatorId, Long signatureId, String textHash);
+}
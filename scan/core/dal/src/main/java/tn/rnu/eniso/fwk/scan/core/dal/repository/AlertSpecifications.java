@@ -0,0 +1,65 @@
+package tn.rnu.eniso.fwk.scan.core.dal.repository;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+import tn.rnu.eniso.fwk.scan.core.infra.model.Alert;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertSeverity;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filters for alert queries. Null arguments leave the query unrestricted, so filters
+ * can be combined without building one query method per combination.
+ */
+public final class AlertSpecifications {
+
+    private AlertSpecifications() {
+    }
+
+    public static Specification<Alert> hasSeverity(AlertSeverity severity) {
+        return (root, query, cb) -> severity == null ? null : cb.equal(root.get("severity"), severity);
+    }
+
+    public static Specification<Alert> involvesIp(String ip) {
+        return (root, query, cb) -> ip == null ? null
+                : cb.or(cb.equal(root.get("sourceIp"), ip), cb.equal(root.get("destIp"), ip));
+    }
+
+    /**
+     * Alerts whose source or destination is between two 16-byte addresses, see IpAddresses.toBinary;
+     * each side is a range scan of its address index
+     */
+    public static Specification<Alert> inAddressRange(byte[] low, byte[] high) {
+        return (root, query, cb) -> cb.or(between(cb, root.get("sourceAddress"), low, high),
+                between(cb, root.get("destAddress"), low, high));
+    }
+
+    // byte[] is not Comparable, but the column compares as unsigned bytes
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate between(CriteriaBuilder cb, Expression address, byte[] low, byte[] high) {
+        return cb.between(address, (Expression) cb.literal(low), (Expression) cb.literal(high));
+    }
+
+    public static Specification<Alert> since(LocalDateTime since) {
+        return (root, query, cb) -> since == null ? null : cb.greaterThanOrEqualTo(root.get("timestamp"), since);
+    }
+
+    /**
+     * Alerts from {@code start} inclusive to {@code end} exclusive, like every time range of the API
+     */
+    public static Specification<Alert> between(LocalDateTime start, LocalDateTime end) {
+        return (root, query, cb) -> cb.and(cb.greaterThanOrEqualTo(root.get("timestamp"), start),
+                cb.lessThan(root.get("timestamp"), end));
+    }
+
+    /**
+     * Alerts strictly after the given position in (timestamp, id) descending order
+     */
+    public static Specification<Alert> before(LocalDateTime timestamp, Long id) {
+        return (root, query, cb) -> timestamp == null ? null
+                : cb.or(cb.lessThan(root.get("timestamp"), timestamp),
+                        cb.and(cb.equal(root.get("timestamp"), timestamp), cb.lessThan(root.get("id"), id)));
+    }
+}
@@ -0,0 +1,20 @@
+package tn.rnu.eniso.fwk.scan.core.dal.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import tn.rnu.eniso.fwk.scan.core.infra.model.Alert;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertView;
+
+import java.util.List;
+
+/**
+ * Alert projections for list endpoints, filtered with {@link AlertSpecifications}
+ */
+public interface AlertViewRepository {
+
+    /**
+     * @param page       sort, offset and size; unpaged for every match
+     * @param withDevice left join the correlated device; otherwise the device table is not read
+     */
+    List<AlertView> findViews(Specification<Alert> filter, Pageable page, boolean withDevice);
+}
@@ -0,0 +1,62 @@
+package tn.rnu.eniso.fwk.scan.core.dal.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import tn.rnu.eniso.fwk.scan.core.infra.model.Alert;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertSignature;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertView;
+import tn.rnu.eniso.fwk.scan.core.infra.model.Device;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class AlertViewRepositoryImpl implements AlertViewRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<AlertView> findViews(Specification<Alert> filter, Pageable page, boolean withDevice) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<AlertView> query = cb.createQuery(AlertView.class);
+        Root<Alert> alert = query.from(Alert.class);
+        Join<Alert, AlertSignature> signature = alert.join("signatureRef", JoinType.LEFT);
+
+        List<Selection<?>> columns = new ArrayList<>(List.of(
+                alert.get("id"), alert.get("timestamp"), alert.get("count"), alert.get("firstSeen"),
+                alert.get("lastSeen"), alert.get("sourceIp"), alert.get("destIp"), alert.get("sourcePort"),
+                alert.get("destPort"), alert.get("protocol"), alert.get("signatureId"), alert.get("generatorId"),
+                signature.get("signature"), signature.get("category"), alert.get("severity"), alert.get("action"),
+                alert.get("sensor")));
+        if (withDevice) {
+            Join<Alert, Device> device = alert.join("device", JoinType.LEFT);
+            columns.addAll(List.of(device.get("id"), device.get("ipAddress"), device.get("macAddress"),
+                    device.get("hostname"), device.get("vendor"), device.get("state")));
+        }
+        query.select(cb.construct(AlertView.class, columns.toArray(Selection<?>[]::new)));
+
+        Predicate predicate = filter != null ? filter.toPredicate(alert, query, cb) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(page.getSort(), alert, cb));
+
+        TypedQuery<AlertView> typedQuery = entityManager.createQuery(query);
+        if (page.isPaged()) {
+            typedQuery.setFirstResult((int) page.getOffset());
+            typedQuery.setMaxResults(page.getPageSize());
+        }
+        return typedQuery.getResultList();
+    }
+}
@@ -1,15 +1,20 @@
 package tn.rnu.eniso.fwk.scan.core.dal.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import tn.rnu.eniso.fwk.scan.core.infra.model.Device;
 
 import java.util.List;
-import java.util.Optional;
 
 @Repository
 public interface DeviceRepository extends JpaRepository<Device, Long> {
     List<Device> findByScanSessionId(Long scanSessionId);
 
-    Optional<Device> findByIpAddress(String ipAddress);
+    List<Device> findByAddressBetweenOrderByAddressAscIdDesc(byte[] low, byte[] high);
+
+    @Query("SELECT d FROM Device d WHERE d.id > :after AND d.address IS NULL ORDER BY d.id")
+    List<Device> findWithoutAddress(@Param("after") Long after, Pageable limit);
 }
@@ -1,10 +1,15 @@
 package tn.rnu.eniso.fwk.scan.core.infra.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import tn.rnu.eniso.fwk.scan.core.infra.util.IpAddresses;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
@@ -12,33 +17,71 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Table(indexes = {
-        @Index(name = "idx_alert_timestamp", columnList = "timestamp"),
+        @Index(name = "idx_alert_timestamp_id", columnList = "timestamp, id"),
         @Index(name = "idx_alert_severity", columnList = "severity"),
         @Index(name = "idx_alert_source_ip", columnList = "sourceIp"),
-        @Index(name = "idx_alert_dest_ip", columnList = "destIp")
+        @Index(name = "idx_alert_dest_ip", columnList = "destIp"),
+        @Index(name = "idx_alert_source_address", columnList = "sourceAddress, timestamp"),
+        @Index(name = "idx_alert_dest_address", columnList = "destAddress, timestamp"),
+        @Index(name = "idx_alert_sensor", columnList = "sensor"),
+        @Index(name = "idx_alert_partition_day", columnList = "partitionDay"),
+        @Index(name = "idx_alert_signature_ref", columnList = "signature_ref_id"),
+        @Index(name = "idx_alert_elasticsearch_id", columnList = "elasticsearchId, id")
 })
 public class Alert {
+    public static final int SENSOR_LENGTH = 100;
+
+    // Pooled sequence instead of IDENTITY so Hibernate can batch inserts; moved past older ids at startup
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "alert_seq")
+    @SequenceGenerator(name = "alert_seq", sequenceName = "alert_seq", allocationSize = 50)
     private Long id;
 
+    // UTC, converted from the sensor's offset when parsed; other alert times are UTC as well
     @Column(nullable = false)
     private LocalDateTime timestamp;
 
+    // UTC day of the timestamp: the unit retention deletes, matching the daily Elasticsearch indices
+    @JsonIgnore
+    private LocalDate partitionDay;
+
+    // Number of identical alerts collapsed into this record, and when they were seen
+    @Column(name = "alert_count")
+    private Long count;
+    private LocalDateTime firstSeen;
+    private LocalDateTime lastSeen;
+
     @Column(nullable = false)
     private String sourceIp;
 
     @Column(nullable = false)
     private String destIp;
 
+    // IPs in the 16-byte form of IpAddresses.toBinary, so a CIDR block is an index range
+    @JsonIgnore
+    @Column(length = 16)
+    private byte[] sourceAddress;
+
+    @JsonIgnore
+    @Column(length = 16)
+    private byte[] destAddress;
+
     private Integer sourcePort;
     private Integer destPort;
 
     private String protocol;
 
-    @Column(length = 1000)
+    // Rule message and classification are stored once per rule in the signature dictionary
+    @JsonIgnore
+    @ManyToOne
+    @JoinColumn(name = "signature_ref_id")
+    private AlertSignature signatureRef;
+
+    // Set while parsing and on alerts read from Elasticsearch, otherwise taken from signatureRef
+    @Transient
     private String signature;
 
+    @Transient
     private String category;
 
     @Enumerated(EnumType.STRING)
@@ -48,17 +91,44 @@ public class Alert {
     private Long signatureId;
     private Long generatorId;
 
-    @Column(length = 2000)
+    // Stored compressed in AlertPayload; only set while ingesting and on a single alert read by ID
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Transient
     private String payload;
 
     @Column(length = 500)
     private String action;
 
-    // Optional relationship to Device for correlation
-    @ManyToOne
+    // Suricata instance that produced the alert: EVE "host" field or the tailed file
+    @Column(length = SENSOR_LENGTH)
+    private String sensor;
+
+    // Optional relationship to Device for correlation, fetched only where a query asks for it
+    @JsonIgnoreProperties({"ports", "hibernateLazyInitializer"})
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "device_id")
     private Device device;
 
-    // Elasticsearch document ID for reference
+    // Elasticsearch document ID for reference; indexed with the ID for the reconciler's keyset scan
     private String elasticsearchId;
+
+    public String getSignature() {
+        return signature != null || signatureRef == null ? signature : signatureRef.getSignature();
+    }
+
+    public String getCategory() {
+        return category != null || signatureRef == null ? category : signatureRef.getCategory();
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void updateDerivedColumns() {
+        partitionDay = timestamp != null ? timestamp.toLocalDate() : null;
+        updateAddresses();
+    }
+
+    public void updateAddresses() {
+        sourceAddress = IpAddresses.toBinary(sourceIp);
+        destAddress = IpAddresses.toBinary(destIp);
+    }
 }
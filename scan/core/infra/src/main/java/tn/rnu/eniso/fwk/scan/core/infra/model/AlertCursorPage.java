@@ -0,0 +1,22 @@
+package tn.rnu.eniso.fwk.scan.core.infra.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of alerts in (timestamp, id) descending order. {@code nextCursor} is an opaque
+ * token for the following page, null on the last one; {@code totalElements} is only set
+ * when a total was requested.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertCursorPage {
+    private List<AlertView> content;
+    private String nextCursor;
+    private boolean hasNext;
+    private Long totalElements;
+}
@@ -0,0 +1,10 @@
+package tn.rnu.eniso.fwk.scan.core.infra.model;
+
+/**
+ * Alert attributes with a top-K ranking
+ */
+public enum AlertDimension {
+    SOURCE_IP,
+    DEST_IP,
+    SIGNATURE
+}
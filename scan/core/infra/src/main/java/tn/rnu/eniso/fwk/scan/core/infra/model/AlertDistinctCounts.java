@@ -0,0 +1,28 @@
+package tn.rnu.eniso.fwk.scan.core.infra.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Number of distinct attacker IPs, targets and signatures seen in [from, to), optionally
+ * for a single signature (uniqueSignatures is then null). Approximate counts are within
+ * {@code relativeError} of the true value about two times out of three; exact counts have
+ * a zero error.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertDistinctCounts {
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private String signature;
+    private boolean exact;
+    private double relativeError;
+
+    private long uniqueSourceIps;
+    private long uniqueDestIps;
+    private Long uniqueSignatures;
+}
@@ -0,0 +1,34 @@
+package tn.rnu.eniso.fwk.scan.core.infra.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Alert counts in consecutive buckets of {@code intervalSeconds} from {@code since}, empty
+ * buckets included. Data older than the minute rollups is only as fine as the hourly or
+ * daily rollups it was compacted into, so over that part of the range the interval has to
+ * be a whole number of hours or days.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertHistogram {
+    private LocalDateTime since;
+    private LocalDateTime until;
+    private long intervalSeconds;
+    private List<Bucket> buckets;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Bucket {
+        private LocalDateTime start;
+        private long total;
+        private Map<AlertSeverity, Long> bySeverity;
+    }
+}
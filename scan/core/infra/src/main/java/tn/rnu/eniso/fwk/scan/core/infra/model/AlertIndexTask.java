@@ -0,0 +1,36 @@
+package tn.rnu.eniso.fwk.scan.core.infra.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pending Elasticsearch write of an alert, inserted in the transaction that stores the
+ * alert and deleted once Elasticsearch has accepted the document. A task Elasticsearch
+ * kept rejecting is kept, marked rejected, so the alert is not queued again.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(indexes = @Index(name = "idx_alert_index_task_next_attempt", columnList = "rejected, nextAttempt"))
+public class AlertIndexTask {
+    // ID of the alert to index
+    @Id
+    private Long alertId;
+
+    // Times Elasticsearch rejected the document
+    private int attempts;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttempt;
+
+    @Column(length = 500)
+    private String lastError;
+
+    // Given up on after the maximum number of attempts; lastError holds the last rejection
+    private boolean rejected;
+}
@@ -0,0 +1,31 @@
+package tn.rnu.eniso.fwk.scan.core.infra.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Compressed packet payload of an alert, kept apart from the alert row so that lists and
+ * streams never read it. Written once and read only when a single alert is opened.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(indexes = @Index(name = "idx_alert_payload_partition_day", columnList = "partitionDay"))
+public class AlertPayload {
+    // ID of the alert it belongs to
+    @Id
+    private Long alertId;
+
+    // Same as the alert's, so retention drops both together
+    @Column(nullable = false)
+    private LocalDate partitionDay;
+
+    // Encoding byte followed by a Deflate stream
+    @Column(nullable = false, length = 65536)
+    private byte[] data;
+}
@@ -0,0 +1,42 @@
+package tn.rnu.eniso.fwk.scan.core.infra.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Number of alerts of one severity and category in a time bucket. Recent buckets are
+ * minutes, compacted into hours and then days as they age, so a bucket never overlaps
+ * another of a different resolution.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_alert_rollup_bucket",
+        columnNames = {"bucketStart", "resolution", "severity", "category"}))
+public class AlertRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "alert_rollup_seq")
+    @SequenceGenerator(name = "alert_rollup_seq", sequenceName = "alert_rollup_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private RollupResolution resolution;
+
+    @Column(nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private AlertSeverity severity;
+
+    private String category;
+
+    @Column(name = "alert_count", nullable = false)
+    private long count;
+}
@@ -0,0 +1,45 @@
+package tn.rnu.eniso.fwk.scan.core.infra.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
+
+/**
+ * Dictionary entry for a Suricata rule, identified by its generator and signature IDs and
+ * a hash of its message and classification, so that each revision of a rule's text has
+ * an entry of its own. Alerts refer to it instead of repeating the text.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@BatchSize(size = 100)
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_alert_signature_rule",
+        columnNames = {"generatorId", "signatureId", "textHash"}))
+public class AlertSignature {
+    public static final int SIGNATURE_LENGTH = 1000;
+    public static final int CATEGORY_LENGTH = 255;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "alert_signature_seq")
+    @SequenceGenerator(name = "alert_signature_seq", sequenceName = "alert_signature_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long generatorId;
+
+    @Column(nullable = false)
+    private Long signatureId;
+
+    // SHA-256 of the message and category, in hex
+    @Column(nullable = false, length = 64)
+    private String textHash;
+
+    @Column(length = SIGNATURE_LENGTH)
+    private String signature;
+
+    @Column(length = CATEGORY_LENGTH)
+    private String category;
+}
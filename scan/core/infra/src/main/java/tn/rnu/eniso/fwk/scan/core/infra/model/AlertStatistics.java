@@ -20,6 +20,7 @@ public class AlertStatistics {
     private Map<String, Long> topSourceIps;
     private Map<String, Long> topDestIps;
     private Map<String, Long> topSignatures;
+    private Map<String, Long> alertsBySensor;
 
     private long alertsLastHour;
     private long alertsLast24Hours;
@@ -0,0 +1,34 @@
+package tn.rnu.eniso.fwk.scan.core.infra.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Most frequent values of an alert attribute since a point in time. Approximate counts
+ * may overcount by up to {@code error}, so the true count lies in [count - error, count];
+ * {@code maxError} bounds every error and the count of any value not listed.
+ * Exact results have zero errors.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertTopK {
+    private AlertDimension dimension;
+    private LocalDateTime since;
+    private boolean exact;
+    private long maxError;
+    private List<Entry> entries;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        private String value;
+        private long count;
+        private long error;
+    }
+}
@@ -0,0 +1,65 @@
+package tn.rnu.eniso.fwk.scan.core.infra.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read model of an alert for list endpoints, selected column by column: the rule text
+ * comes from the signature dictionary and the device only when it was asked for. The
+ * payload is left to the single alert endpoints.
+ */
+public record AlertView(
+        Long id,
+        LocalDateTime timestamp,
+        Long count,
+        LocalDateTime firstSeen,
+        LocalDateTime lastSeen,
+        String sourceIp,
+        String destIp,
+        Integer sourcePort,
+        Integer destPort,
+        String protocol,
+        Long signatureId,
+        Long generatorId,
+        String signature,
+        String category,
+        AlertSeverity severity,
+        String action,
+        String sensor,
+        @JsonInclude(JsonInclude.Include.NON_NULL) DeviceView device) {
+
+    /**
+     * Projection without device
+     */
+    public AlertView(Long id, LocalDateTime timestamp, Long count, LocalDateTime firstSeen, LocalDateTime lastSeen,
+                     String sourceIp, String destIp, Integer sourcePort, Integer destPort, String protocol,
+                     Long signatureId, Long generatorId, String signature, String category, AlertSeverity severity,
+                     String action, String sensor) {
+        this(id, timestamp, count, firstSeen, lastSeen, sourceIp, destIp, sourcePort, destPort, protocol,
+                signatureId, generatorId, signature, category, severity, action, sensor, null);
+    }
+
+    /**
+     * Projection with the columns of the left-joined device, all null when there is none
+     */
+    public AlertView(Long id, LocalDateTime timestamp, Long count, LocalDateTime firstSeen, LocalDateTime lastSeen,
+                     String sourceIp, String destIp, Integer sourcePort, Integer destPort, String protocol,
+                     Long signatureId, Long generatorId, String signature, String category, AlertSeverity severity,
+                     String action, String sensor,
+                     Long deviceId, String deviceIpAddress, String deviceMacAddress, String deviceHostname,
+                     String deviceVendor, String deviceState) {
+        this(id, timestamp, count, firstSeen, lastSeen, sourceIp, destIp, sourcePort, destPort, protocol,
+                signatureId, generatorId, signature, category, severity, action, sensor,
+                deviceId == null ? null : new DeviceView(deviceId, deviceIpAddress, deviceMacAddress, deviceHostname,
+                        deviceVendor, deviceState));
+    }
+
+    public static AlertView of(Alert alert, boolean withDevice) {
+        return new AlertView(alert.getId(), alert.getTimestamp(), alert.getCount(), alert.getFirstSeen(),
+                alert.getLastSeen(), alert.getSourceIp(), alert.getDestIp(), alert.getSourcePort(), alert.getDestPort(),
+                alert.getProtocol(), alert.getSignatureId(), alert.getGeneratorId(), alert.getSignature(),
+                alert.getCategory(), alert.getSeverity(), alert.getAction(), alert.getSensor(),
+                withDevice ? DeviceView.of(alert.getDevice()) : null);
+    }
+}
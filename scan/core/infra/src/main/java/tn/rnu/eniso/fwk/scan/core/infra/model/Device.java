@@ -1,9 +1,11 @@
 package tn.rnu.eniso.fwk.scan.core.infra.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import tn.rnu.eniso.fwk.scan.core.infra.util.IpAddresses;
 
 import java.util.List;
 
@@ -11,21 +13,36 @@ import java.util.List;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@Table(indexes = @Index(name = "idx_device_address", columnList = "address"))
 public class Device {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     private String ipAddress;
+
+    // ipAddress in the 16-byte form of IpAddresses.toBinary
+    @JsonIgnore
+    @Column(length = 16)
+    private byte[] address;
+
     private String macAddress;
     private String hostname;
     private String vendor;
     private String state;
 
-    @ManyToOne
+    // Back reference, not serialized: the session lists its devices
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "scan_session_id")
     private ScanSession scanSession;
 
     @OneToMany(mappedBy = "device", cascade = CascadeType.ALL)
     private List<Port> ports;
+
+    @PrePersist
+    @PreUpdate
+    public void updateAddress() {
+        address = IpAddresses.toBinary(ipAddress);
+    }
 }
@@ -0,0 +1,12 @@
+package tn.rnu.eniso.fwk.scan.core.infra.model;
+
+/**
+ * Device correlated with an alert, without its scan session and ports
+ */
+public record DeviceView(Long id, String ipAddress, String macAddress, String hostname, String vendor, String state) {
+
+    public static DeviceView of(Device device) {
+        return device == null ? null : new DeviceView(device.getId(), device.getIpAddress(), device.getMacAddress(),
+                device.getHostname(), device.getVendor(), device.getState());
+    }
+}
@@ -1,5 +1,6 @@
 package tn.rnu.eniso.fwk.scan.core.infra.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -20,7 +21,9 @@ public class Port {
     private String state;
     private String version;
 
-    @ManyToOne
+    // Back reference, not serialized: the device lists its ports
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "device_id")
     private Device device;
 }
@@ -0,0 +1,128 @@
+package tn.rnu.eniso.fwk.scan.core.infra.util;
+
+import java.util.Arrays;
+
+/**
+ * IPv4 or IPv6 network in CIDR notation, such as {@code 10.0.0.0/8} or {@code 2001:db8::/32}.
+ * An address without a prefix length is a block of that single address. IPv4-mapped
+ * addresses are taken as IPv4, so {@code ::ffff:10.0.0.0/104} is {@code 10.0.0.0/8} and
+ * contains {@code ::ffff:10.1.2.3} as well as {@code 10.1.2.3}.
+ */
+public final class CidrBlock {
+
+    private final byte[] network;
+    private final int prefixLength;
+
+    private CidrBlock(byte[] network, int prefixLength) {
+        this.network = network;
+        this.prefixLength = prefixLength;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the value is not an IP literal with an optional prefix length
+     */
+    public static CidrBlock parse(String cidr) {
+        if (cidr == null || cidr.isBlank()) {
+            throw new IllegalArgumentException("Empty CIDR block");
+        }
+        int slash = cidr.indexOf('/');
+        String address = slash < 0 ? cidr.trim() : cidr.substring(0, slash).trim();
+        byte[] bytes = toBytes(address);
+        if (bytes == null) {
+            throw new IllegalArgumentException("Not an IP address: " + address);
+        }
+        int maxPrefixLength = address.indexOf(':') >= 0 ? 128 : 32;
+        int prefixLength = maxPrefixLength;
+        if (slash >= 0) {
+            try {
+                prefixLength = Integer.parseInt(cidr.substring(slash + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid prefix length in " + cidr);
+            }
+            if (prefixLength < 0 || prefixLength > maxPrefixLength) {
+                throw new IllegalArgumentException("Invalid prefix length in " + cidr);
+            }
+        }
+        if (bytes.length == 4 && maxPrefixLength == 128) {
+            // The first 96 bits of an IPv4-mapped address are the ::ffff: prefix
+            if (prefixLength < 96) {
+                throw new IllegalArgumentException("Prefix length of an IPv4-mapped block must be at least 96: " + cidr);
+            }
+            prefixLength -= 96;
+        }
+        // Clear host bits so that 10.1.2.3/8 is 10.0.0.0/8
+        for (int bit = prefixLength; bit < bytes.length * 8; bit++) {
+            bytes[bit / 8] &= (byte) ~(0x80 >>> (bit % 8));
+        }
+        return new CidrBlock(bytes, prefixLength);
+    }
+
+    public boolean contains(String ip) {
+        byte[] bytes = toBytes(ip);
+        if (bytes == null || bytes.length != network.length) {
+            return false;
+        }
+        int wholeBytes = prefixLength / 8;
+        for (int i = 0; i < wholeBytes; i++) {
+            if (bytes[i] != network[i]) {
+                return false;
+            }
+        }
+        int remainingBits = prefixLength % 8;
+        if (remainingBits == 0) {
+            return true;
+        }
+        int mask = (0xFF << (8 - remainingBits)) & 0xFF;
+        return (bytes[wholeBytes] & mask) == (network[wholeBytes] & mask);
+    }
+
+    public byte[] getNetwork() {
+        return network.clone();
+    }
+
+    public int getPrefixLength() {
+        return prefixLength;
+    }
+
+    /**
+     * Lowest address of the block in the 16-byte form of {@link IpAddresses#toBinary}
+     */
+    public byte[] lowerBound() {
+        return bound(false);
+    }
+
+    /**
+     * Highest address of the block in the 16-byte form of {@link IpAddresses#toBinary}
+     */
+    public byte[] upperBound() {
+        return bound(true);
+    }
+
+    private byte[] bound(boolean hostBits) {
+        byte[] bytes = new byte[16];
+        int offset = 16 - network.length;
+        if (offset > 0) {
+            bytes[10] = (byte) 0xFF;
+            bytes[11] = (byte) 0xFF;
+        }
+        System.arraycopy(network, 0, bytes, offset, network.length);
+        if (hostBits) {
+            for (int bit = offset * 8 + prefixLength; bit < 128; bit++) {
+                bytes[bit / 8] |= (byte) (0x80 >>> (bit % 8));
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * 4 bytes of an IPv4 or IPv4-mapped address, 16 of any other IPv6 address
+     */
+    private static byte[] toBytes(String ip) {
+        long ipv4 = IpAddresses.parseIpv4(ip);
+        if (ipv4 >= 0) {
+            return new byte[]{(byte) (ipv4 >>> 24), (byte) (ipv4 >>> 16), (byte) (ipv4 >>> 8), (byte) ipv4};
+        }
+        byte[] binary = IpAddresses.toBinary(ip);
+        return binary != null && IpAddresses.isIpv4Mapped(binary) ? Arrays.copyOfRange(binary, 12, 16) : binary;
+    }
+}
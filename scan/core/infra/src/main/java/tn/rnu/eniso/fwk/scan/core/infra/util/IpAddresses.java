@@ -0,0 +1,110 @@
+package tn.rnu.eniso.fwk.scan.core.infra.util;
+
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+
+/**
+ * Parsing helpers for IP address literals. Never performs DNS lookups.
+ */
+public final class IpAddresses {
+
+    private IpAddresses() {
+    }
+
+    /**
+     * Parse a dotted IPv4 literal into its unsigned 32-bit value, or -1 if it is not one
+     */
+    public static long parseIpv4(String ip) {
+        if (ip == null || ip.isEmpty()) {
+            return -1;
+        }
+        long value = 0;
+        int octet = -1;
+        int dots = 0;
+        for (int i = 0; i < ip.length(); i++) {
+            char c = ip.charAt(i);
+            if (c >= '0' && c <= '9') {
+                octet = (octet < 0 ? 0 : octet * 10) + (c - '0');
+                if (octet > 255) {
+                    return -1;
+                }
+            } else if (c == '.' && octet >= 0 && dots < 3) {
+                value = (value << 8) | octet;
+                octet = -1;
+                dots++;
+            } else {
+                return -1;
+            }
+        }
+        if (octet < 0 || dots != 3) {
+            return -1;
+        }
+        return (value << 8) | octet;
+    }
+
+    /**
+     * Parse an IPv6 literal into its 16 bytes, or null if it is not one
+     */
+    public static byte[] parseIpv6(String ip) {
+        if (ip == null || ip.indexOf(':') < 0) {
+            return null;
+        }
+        try {
+            // A literal containing ':' is never resolved through DNS
+            InetAddress address = InetAddress.getByName(ip);
+            return address instanceof Inet6Address ? address.getAddress() : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 16-byte form of an IPv4 or IPv6 literal, or null if it is neither. IPv4 addresses are
+     * IPv4-mapped ({@code ::ffff:a.b.c.d}) so both families sort in one column and a
+     * network is a contiguous range of it.
+     */
+    public static byte[] toBinary(String ip) {
+        long ipv4 = parseIpv4(ip);
+        if (ipv4 >= 0) {
+            return mapIpv4(ipv4);
+        }
+        if (ip == null || ip.indexOf(':') < 0) {
+            return null;
+        }
+        try {
+            InetAddress address = InetAddress.getByName(ip);
+            // The JDK turns ::ffff:a.b.c.d literals into Inet4Address
+            if (address instanceof Inet4Address) {
+                byte[] bytes = address.getAddress();
+                return mapIpv4(((bytes[0] & 0xFFL) << 24) | ((bytes[1] & 0xFFL) << 16) | ((bytes[2] & 0xFFL) << 8) | (bytes[3] & 0xFFL));
+            }
+            return address.getAddress();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Whether the 16-byte form holds an IPv4-mapped address
+     */
+    public static boolean isIpv4Mapped(byte[] bytes) {
+        for (int i = 0; i < 10; i++) {
+            if (bytes[i] != 0) {
+                return false;
+            }
+        }
+        return bytes[10] == (byte) 0xFF && bytes[11] == (byte) 0xFF;
+    }
+
+    private static byte[] mapIpv4(long ipv4) {
+        byte[] bytes = new byte[16];
+        bytes[10] = (byte) 0xFF;
+        bytes[11] = (byte) 0xFF;
+        bytes[12] = (byte) (ipv4 >>> 24);
+        bytes[13] = (byte) (ipv4 >>> 16);
+        bytes[14] = (byte) (ipv4 >>> 8);
+        bytes[15] = (byte) ipv4;
+        return bytes;
+    }
+}
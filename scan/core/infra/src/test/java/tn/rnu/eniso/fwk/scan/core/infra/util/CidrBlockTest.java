@@ -0,0 +1,122 @@
+package tn.rnu.eniso.fwk.scan.core.infra.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CidrBlockTest {
+
+    @Test
+    void clearsHostBits() {
+        CidrBlock block = CidrBlock.parse(" 10.1.2.3/8 ");
+        assertArrayEquals(new byte[]{10, 0, 0, 0}, block.getNetwork());
+        assertEquals(8, block.getPrefixLength());
+        assertTrue(block.contains("10.255.255.255"));
+        assertFalse(block.contains("11.0.0.0"));
+    }
+
+    @Test
+    void zeroPrefixContainsTheWholeFamily() {
+        CidrBlock ipv4 = CidrBlock.parse("0.0.0.0/0");
+        assertTrue(ipv4.contains("0.0.0.0"));
+        assertTrue(ipv4.contains("255.255.255.255"));
+        assertFalse(ipv4.contains("2001:db8::1"));
+
+        CidrBlock ipv6 = CidrBlock.parse("::/0");
+        assertTrue(ipv6.contains("::1"));
+        assertTrue(ipv6.contains("ffff:ffff:ffff:ffff:ffff:ffff:ffff:ffff"));
+        assertFalse(ipv6.contains("10.0.0.1"));
+    }
+
+    @Test
+    void fullPrefixIsASingleAddress() {
+        CidrBlock ipv4 = CidrBlock.parse("192.168.1.7/32");
+        assertTrue(ipv4.contains("192.168.1.7"));
+        assertFalse(ipv4.contains("192.168.1.6"));
+        assertEquals(32, CidrBlock.parse("192.168.1.7").getPrefixLength());
+
+        CidrBlock ipv6 = CidrBlock.parse("2001:db8::7/128");
+        assertTrue(ipv6.contains("2001:db8:0:0:0:0:0:7"));
+        assertFalse(ipv6.contains("2001:db8::6"));
+        assertEquals(128, CidrBlock.parse("2001:db8::7").getPrefixLength());
+    }
+
+    @Test
+    void prefixWithinAnOctet() {
+        CidrBlock ipv4 = CidrBlock.parse("172.16.0.0/12");
+        assertTrue(ipv4.contains("172.16.0.0"));
+        assertTrue(ipv4.contains("172.31.255.255"));
+        assertFalse(ipv4.contains("172.32.0.0"));
+        assertFalse(ipv4.contains("172.15.255.255"));
+
+        CidrBlock odd = CidrBlock.parse("10.0.0.128/25");
+        assertTrue(odd.contains("10.0.0.200"));
+        assertFalse(odd.contains("10.0.0.127"));
+
+        CidrBlock ipv6 = CidrBlock.parse("2001:db8:8000::/33");
+        assertTrue(ipv6.contains("2001:db8:ffff::1"));
+        assertFalse(ipv6.contains("2001:db8:7fff::1"));
+    }
+
+    @Test
+    void ipv4MappedAddressesAreIpv4() {
+        CidrBlock block = CidrBlock.parse("10.0.0.0/8");
+        assertTrue(block.contains("::ffff:10.1.2.3"));
+        assertFalse(block.contains("::ffff:11.1.2.3"));
+
+        CidrBlock mapped = CidrBlock.parse("::ffff:10.0.0.0/104");
+        assertEquals(8, mapped.getPrefixLength());
+        assertArrayEquals(new byte[]{10, 0, 0, 0}, mapped.getNetwork());
+        assertTrue(mapped.contains("10.1.2.3"));
+        assertTrue(mapped.contains("::ffff:10.1.2.3"));
+        assertEquals(32, CidrBlock.parse("::ffff:10.0.0.1").getPrefixLength());
+
+        assertThrows(IllegalArgumentException.class, () -> CidrBlock.parse("::ffff:10.0.0.0/95"));
+    }
+
+    @Test
+    void boundsAreInTheSixteenByteForm() {
+        CidrBlock ipv4 = CidrBlock.parse("10.0.0.0/8");
+        assertEquals("00000000000000000000ffff0a000000", hex(ipv4.lowerBound()));
+        assertEquals("00000000000000000000ffff0affffff", hex(ipv4.upperBound()));
+        assertArrayEquals(IpAddresses.toBinary("10.0.0.0"), ipv4.lowerBound());
+        assertArrayEquals(IpAddresses.toBinary("10.255.255.255"), ipv4.upperBound());
+
+        CidrBlock all = CidrBlock.parse("0.0.0.0/0");
+        assertEquals("00000000000000000000ffff00000000", hex(all.lowerBound()));
+        assertEquals("00000000000000000000ffffffffffff", hex(all.upperBound()));
+
+        CidrBlock ipv6 = CidrBlock.parse("2001:db8::/32");
+        assertEquals("20010db8000000000000000000000000", hex(ipv6.lowerBound()));
+        assertEquals("20010db8ffffffffffffffffffffffff", hex(ipv6.upperBound()));
+
+        CidrBlock single = CidrBlock.parse("2001:db8::7/128");
+        assertArrayEquals(single.lowerBound(), single.upperBound());
+
+        CidrBlock everything = CidrBlock.parse("::/0");
+        assertEquals("00000000000000000000000000000000", hex(everything.lowerBound()));
+        assertEquals("ffffffffffffffffffffffffffffffff", hex(everything.upperBound()));
+    }
+
+    @Test
+    void rejectsInvalidBlocks() {
+        for (String cidr : new String[]{null, " ", "10.0.0.0/33", "10.0.0.0/-1", "10.0.0.0/x", "2001:db8::/129",
+                "10.0.0/8", "example.com/8"}) {
+            assertThrows(IllegalArgumentException.class, () -> CidrBlock.parse(cidr), cidr);
+        }
+    }
+
+    @Test
+    void doesNotContainInvalidAddresses() {
+        CidrBlock block = CidrBlock.parse("0.0.0.0/0");
+        assertFalse(block.contains(null));
+        assertFalse(block.contains(""));
+        assertFalse(block.contains("10.0.0.256"));
+    }
+
+    private static String hex(byte[] bytes) {
+        return HexFormat.of().formatHex(bytes);
+    }
+}
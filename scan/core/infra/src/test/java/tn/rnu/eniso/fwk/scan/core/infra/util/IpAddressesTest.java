@@ -0,0 +1,56 @@
+package tn.rnu.eniso.fwk.scan.core.infra.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IpAddressesTest {
+
+    @Test
+    void parsesIpv4() {
+        assertEquals(0, IpAddresses.parseIpv4("0.0.0.0"));
+        assertEquals(0xFFFFFFFFL, IpAddresses.parseIpv4("255.255.255.255"));
+        assertEquals(0x0A000001L, IpAddresses.parseIpv4("10.0.0.1"));
+    }
+
+    @Test
+    void rejectsMalformedIpv4() {
+        for (String ip : new String[]{null, "", "10.0.0", "10.0.0.1.2", "10.0.0.256", "10..0.1", ".10.0.0.1",
+                "10.0.0.1.", "10.0.0.a", "::1"}) {
+            assertEquals(-1, IpAddresses.parseIpv4(ip), ip);
+        }
+    }
+
+    @Test
+    void parsesIpv6WithoutLookingUpNames() {
+        assertEquals("20010db8000000000000000000000001", hex(IpAddresses.parseIpv6("2001:db8::1")));
+        assertNull(IpAddresses.parseIpv6("10.0.0.1"));
+        assertNull(IpAddresses.parseIpv6("localhost"));
+        assertNull(IpAddresses.parseIpv6("2001:db8::g"));
+        // The JDK reads mapped literals as IPv4
+        assertNull(IpAddresses.parseIpv6("::ffff:10.0.0.1"));
+    }
+
+    @Test
+    void mapsIpv4IntoTheIpv6Range() {
+        byte[] ipv4 = IpAddresses.toBinary("10.0.0.1");
+        assertEquals("00000000000000000000ffff0a000001", hex(ipv4));
+        assertArrayEquals(ipv4, IpAddresses.toBinary("::ffff:10.0.0.1"));
+        assertArrayEquals(ipv4, IpAddresses.toBinary("::ffff:a00:1"));
+        assertTrue(IpAddresses.isIpv4Mapped(ipv4));
+
+        byte[] ipv6 = IpAddresses.toBinary("2001:db8::1");
+        assertEquals(16, ipv6.length);
+        assertFalse(IpAddresses.isIpv4Mapped(ipv6));
+        assertFalse(IpAddresses.isIpv4Mapped(IpAddresses.toBinary("::1")));
+
+        assertNull(IpAddresses.toBinary(null));
+        assertNull(IpAddresses.toBinary("not an address"));
+    }
+
+    private static String hex(byte[] bytes) {
+        return HexFormat.of().formatHex(bytes);
+    }
+}
@@ -0,0 +1,12 @@
+package tn.rnu.eniso.fwk.scan.core.service.api;
+
+import tn.rnu.eniso.fwk.scan.core.infra.model.Alert;
+
+import java.util.List;
+
+/**
+ * Published once a batch of alerts is committed, on the ingest thread. Listeners must hand
+ * the alerts off rather than do slow work, since they hold up the next batch.
+ */
+public record AlertsIngestedEvent(List<Alert> alerts) {
+}
@@ -2,6 +2,8 @@ package tn.rnu.eniso.fwk.scan.core.service.api;
 
 import tn.rnu.eniso.fwk.scan.core.infra.model.Alert;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -9,9 +11,12 @@ import java.util.Map;
 public interface ElasticsearchService {
 
     /**
-     * Index an alert in Elasticsearch
+     * Index alerts in one bulk request, using each alert's elasticsearchId as document ID
+     *
+     * @return the reason of each document Elasticsearch rejected, by alert ID
+     * @throws IOException when Elasticsearch cannot be reached
      */
-    String indexAlert(Alert alert);
+    Map<Long, String> indexAlerts(List<Alert> alerts) throws IOException;
 
     /**
      * Search alerts with a query string
@@ -34,7 +39,14 @@ public interface ElasticsearchService {
     boolean isAvailable();
 
     /**
-     * Create the alerts index if it doesn't exist
+     * Install the template of the daily alert indices and their read alias
      */
     void createIndexIfNotExists();
+
+    /**
+     * Delete the daily alert indices of days before the given one
+     *
+     * @return the number of indices deleted
+     */
+    int deleteIndicesBefore(LocalDate day);
 }
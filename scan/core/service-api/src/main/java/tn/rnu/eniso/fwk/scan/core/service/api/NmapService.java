@@ -12,5 +12,12 @@ public interface NmapService {
 
     List<Device> getDevices(Long scanId);
 
+    /**
+     * Devices of all scans whose address is in a CIDR block
+     *
+     * @throws IllegalArgumentException if the block is not valid CIDR notation
+     */
+    List<Device> getDevicesInNetwork(String cidr);
+
     ScanSession getScanById(Long scanId);
 }
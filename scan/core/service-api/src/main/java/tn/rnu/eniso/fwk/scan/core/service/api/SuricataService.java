@@ -3,49 +3,113 @@ package tn.rnu.eniso.fwk.scan.core.service.api;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import tn.rnu.eniso.fwk.scan.core.infra.model.Alert;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertCursorPage;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertDimension;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertDistinctCounts;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertHistogram;
 import tn.rnu.eniso.fwk.scan.core.infra.model.AlertSeverity;
 import tn.rnu.eniso.fwk.scan.core.infra.model.AlertStatistics;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertTopK;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertView;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
+/**
+ * List methods return {@link AlertView} projections; with {@code includeDevice} each carries
+ * its correlated device, otherwise the device is neither read nor returned.
+ */
 public interface SuricataService {
 
     /**
-     * Get recent alerts with limit
+     * Get the most recently committed alerts, newest first, optionally only those of a
+     * severity or involving an IP address
      */
-    List<Alert> getRecentAlerts(int limit);
+    List<AlertView> getRecentAlerts(int limit, AlertSeverity severity, String ipAddress, boolean includeDevice);
 
     /**
      * Get alerts with pagination
      */
-    Page<Alert> getAlerts(Pageable pageable);
+    Page<AlertView> getAlerts(Pageable pageable, boolean includeDevice);
 
     /**
-     * Get alerts within a time range
+     * Get the page of alerts following a cursor (null for the first page), newest first.
+     * Severity and IP filters are optional; the total is only counted when requested.
      */
-    List<Alert> getAlertsByTimeRange(LocalDateTime start, LocalDateTime end);
+    AlertCursorPage getAlertsByCursor(String cursor, int size, AlertSeverity severity, String ipAddress,
+                                      boolean includeTotal, boolean includeDevice);
 
     /**
-     * Get alerts by severity level
+     * Get alerts from start inclusive to end exclusive, newest first
      */
-    List<Alert> getAlertsBySeverity(AlertSeverity severity);
+    List<AlertView> getAlertsByTimeRange(LocalDateTime start, LocalDateTime end, boolean includeDevice);
 
     /**
-     * Get alerts related to a specific IP address
+     * Stream alerts from start inclusive to end exclusive, oldest first, to a consumer one at a time
+     * @return number of alerts exported
      */
-    List<Alert> getAlertsByIp(String ipAddress);
+    long exportAlerts(LocalDateTime start, LocalDateTime end, AlertSeverity severity, String ipAddress,
+                      Consumer<Alert> consumer);
+
+    /**
+     * Get alerts by severity level, newest first
+     */
+    List<AlertView> getAlertsBySeverity(AlertSeverity severity, boolean includeDevice);
+
+    /**
+     * Get alerts related to a specific IP address, newest first
+     */
+    List<AlertView> getAlertsByIp(String ipAddress, boolean includeDevice);
+
+    /**
+     * Get alerts whose source or destination is in a CIDR block, newest first
+     *
+     * @throws IllegalArgumentException if the block is not valid CIDR notation
+     */
+    List<AlertView> getAlertsByCidr(String cidr, LocalDateTime since, int limit, boolean includeDevice);
 
     /**
      * Get alert by ID
      */
     Alert getAlertById(Long id);
 
+    /**
+     * Get the packet payload of an alert as Suricata logged it, or null if it has none
+     */
+    String getAlertPayload(Long id);
+
     /**
      * Get statistics for dashboard
      */
     AlertStatistics getStatistics(LocalDateTime since);
 
+    /**
+     * Get the most frequent values of an alert attribute, approximate with error bounds
+     * unless exact counts are requested
+     */
+    AlertTopK getTopK(AlertDimension dimension, LocalDateTime since, int limit, boolean exact);
+
+    /**
+     * Count distinct source IPs, destination IPs and signatures, for all alerts or a single
+     * signature; approximate unless exact counts are requested
+     */
+    AlertDistinctCounts getDistinctCounts(LocalDateTime since, String signature, boolean exact);
+
+    /**
+     * Approximate distinct counts of each hour since the given time
+     */
+    List<AlertDistinctCounts> getHourlyDistinctCounts(LocalDateTime since, String signature);
+
+    /**
+     * Alert counts per interval between two times, read from the rollup table.
+     * Severity and category filters are optional. Throws IllegalArgumentException if the
+     * interval is finer than the rollups covering part of the range.
+     */
+    AlertHistogram getHistogram(Duration interval, LocalDateTime since, LocalDateTime until,
+                                AlertSeverity severity, String category);
+
     /**
      * Process a Suricata EVE JSON log entry
      */
@@ -55,4 +119,17 @@ public interface SuricataService {
      * Process multiple EVE JSON log entries
      */
     void processEveLogs(List<String> jsonLogs);
+
+    /**
+     * Persist already parsed alerts as one batch. If the batch is rolled back the alerts
+     * are left as they were passed, so the same list can be saved again.
+     */
+    void saveAlerts(List<Alert> alerts);
+
+    /**
+     * Persist alerts read from archived files as one batch. They count in statistics and
+     * rollups but are not live: they are not streamed, not served as recent alerts and do
+     * not advance the ingest watermark.
+     */
+    void saveArchivedAlerts(List<Alert> alerts);
 }
@@ -0,0 +1,141 @@
+package tn.rnu.eniso.fwk.scan.core.service.impl;
+
+import tn.rnu.eniso.fwk.scan.core.infra.model.Alert;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collapses identical alerts (same signature, source, destination, destination port and
+ * sensor) into one record per window. A window opens with the first alert of a key and
+ * takes duplicates whose event time falls within it; it is closed when it has been open
+ * for the window duration, or earlier when an alert of the same key falls outside it.
+ * Windows remember the caller's batch number they were opened in, so the caller can tell
+ * which of its batches are fully written.
+ */
+public class AlertAggregator {
+
+    private final Duration window;
+    private final long windowNanos;
+    private final Map<Key, Open> open = new HashMap<>();
+
+    public AlertAggregator(long windowMillis) {
+        this.window = Duration.ofMillis(windowMillis);
+        this.windowNanos = window.toNanos();
+    }
+
+    /**
+     * Merge alerts into their windows, returning the aggregates closed along the way
+     */
+    public List<Alert> add(Collection<Alert> alerts) {
+        return add(alerts, 0);
+    }
+
+    /**
+     * Merge alerts of the given batch into their windows, returning the aggregates closed
+     * along the way
+     */
+    public synchronized List<Alert> add(Collection<Alert> alerts, long batch) {
+        List<Alert> closed = new ArrayList<>();
+        long now = System.nanoTime();
+        for (Alert alert : alerts) {
+            Key key = Key.of(alert);
+            Open current = open.get(key);
+            if (current != null && !current.accepts(alert.getTimestamp(), window)) {
+                closed.add(current.alert);
+                current = null;
+            }
+            if (current == null) {
+                open.put(key, new Open(alert, now, batch));
+            } else {
+                current.merge(alert);
+            }
+        }
+        return closed;
+    }
+
+    /**
+     * Close and return the windows that have been open for the window duration
+     */
+    public synchronized List<Alert> expired() {
+        List<Alert> closed = new ArrayList<>();
+        long now = System.nanoTime();
+        for (Iterator<Open> it = open.values().iterator(); it.hasNext(); ) {
+            Open current = it.next();
+            if (now - current.openedNanos >= windowNanos) {
+                closed.add(current.alert);
+                it.remove();
+            }
+        }
+        return closed;
+    }
+
+    /**
+     * Close and return every open window
+     */
+    public synchronized List<Alert> drain() {
+        List<Alert> closed = new ArrayList<>(open.size());
+        open.values().forEach(current -> closed.add(current.alert));
+        open.clear();
+        return closed;
+    }
+
+    public synchronized int size() {
+        return open.size();
+    }
+
+    /**
+     * Batch number of the oldest open window, or {@code Long.MAX_VALUE} when none is open.
+     * Every alert of earlier batches is in a closed window.
+     */
+    public synchronized long oldestBatch() {
+        long oldest = Long.MAX_VALUE;
+        for (Open current : open.values()) {
+            oldest = Math.min(oldest, current.batch);
+        }
+        return oldest;
+    }
+
+    private static final class Open {
+
+        final Alert alert;
+        final long openedNanos;
+        final long batch;
+
+        Open(Alert alert, long openedNanos, long batch) {
+            this.alert = alert;
+            this.openedNanos = openedNanos;
+            this.batch = batch;
+        }
+
+        boolean accepts(LocalDateTime timestamp, Duration window) {
+            LocalDateTime first = alert.getFirstSeen();
+            return timestamp.isBefore(first.plus(window)) && timestamp.isAfter(first.minus(window));
+        }
+
+        void merge(Alert duplicate) {
+            alert.setCount(alert.getCount() + duplicate.getCount());
+            if (duplicate.getFirstSeen().isBefore(alert.getFirstSeen())) {
+                alert.setFirstSeen(duplicate.getFirstSeen());
+                alert.setTimestamp(duplicate.getFirstSeen());
+            }
+            if (duplicate.getLastSeen().isAfter(alert.getLastSeen())) {
+                alert.setLastSeen(duplicate.getLastSeen());
+            }
+        }
+    }
+
+    private record Key(Long signatureId, String sourceIp, String destIp, Integer destPort, String sensor) {
+
+        static Key of(Alert alert) {
+            return new Key(alert.getSignatureId(), alert.getSourceIp(), alert.getDestIp(),
+                    alert.getDestPort(), alert.getSensor());
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package tn.rnu.eniso.fwk.scan.core.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Moves the alert id sequence past the ids of existing alerts, which were generated by
+ * IDENTITY before alerts were inserted in batches. Runs before anything saves an alert.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class AlertIdSequence {
+
+    private static final String SEQUENCE = "alert_seq";
+    // allocationSize of Alert.id: each sequence value ends a block of that many ids
+    private static final int ALLOCATION_SIZE = 50;
+
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+
+    @PostConstruct
+    public void seed() {
+        try {
+            Dialect dialect = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                    .getJdbcServices().getDialect();
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                Number maxId = (Number) entityManager.createNativeQuery("SELECT MAX(id) FROM alert").getSingleResult();
+                if (maxId == null) {
+                    return;
+                }
+                Number next = (Number) entityManager.createNativeQuery(
+                        dialect.getSequenceSupport().getSequenceNextValString(SEQUENCE)).getSingleResult();
+                if (next.longValue() - ALLOCATION_SIZE >= maxId.longValue()) {
+                    return;
+                }
+                long restart = maxId.longValue() + ALLOCATION_SIZE;
+                entityManager.createNativeQuery("ALTER SEQUENCE " + SEQUENCE + " RESTART WITH " + restart).executeUpdate();
+                log.info("Moved the alert id sequence past existing alert {}", maxId);
+            });
+        } catch (Exception e) {
+            log.error("Error seeding the alert id sequence, new alerts may collide with existing ids", e);
+        }
+    }
+}
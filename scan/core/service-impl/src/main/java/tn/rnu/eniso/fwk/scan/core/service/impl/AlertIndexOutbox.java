@@ -0,0 +1,205 @@
+package tn.rnu.eniso.fwk.scan.core.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.rnu.eniso.fwk.scan.core.dal.repository.AlertIndexTaskRepository;
+import tn.rnu.eniso.fwk.scan.core.dal.repository.AlertRepository;
+import tn.rnu.eniso.fwk.scan.core.infra.model.Alert;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertIndexTask;
+import tn.rnu.eniso.fwk.scan.core.service.api.ElasticsearchService;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Transactional outbox of Elasticsearch writes. Ingest only inserts an
+ * {@link AlertIndexTask} next to each alert; a scheduled worker sends due tasks in bulk
+ * requests and deletes them once indexed. A document Elasticsearch rejects is retried with
+ * exponential backoff, and after {@code elasticsearch.outbox.max-attempts} its task is
+ * marked rejected and kept with the last error, which also keeps
+ * {@link AlertIndexReconciler} from queueing the alert again. Deleting the task makes the
+ * reconciler index the alert on its next run.
+ * <p>
+ * Failed requests count towards a circuit breaker instead: after
+ * {@code elasticsearch.outbox.circuit.failure-threshold} in a row the worker stops sending
+ * for the open duration, doubled each time a trial request fails again, so that an
+ * unreachable cluster costs one timeout per period rather than one per batch.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class AlertIndexOutbox {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final AlertIndexTaskRepository taskRepository;
+    private final AlertRepository alertRepository;
+    private final ElasticsearchService elasticsearchService;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+    private final SuricataMetrics metrics;
+
+    @Value("${elasticsearch.outbox.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${elasticsearch.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${elasticsearch.outbox.backoff.initial:1000}")
+    private long initialBackoff;
+
+    @Value("${elasticsearch.outbox.backoff.max:300000}")
+    private long maxBackoff;
+
+    @Value("${elasticsearch.outbox.circuit.failure-threshold:3}")
+    private int failureThreshold;
+
+    @Value("${elasticsearch.outbox.circuit.open-duration:30000}")
+    private long openDuration;
+
+    // Circuit breaker state, only touched by the scheduler thread
+    private int consecutiveFailures;
+    private int consecutiveOpens;
+    private volatile long openUntil;
+
+    @PostConstruct
+    public void registerMetrics() {
+        metrics.registerIndexOutbox(() -> taskRepository.countByRejected(false),
+                () -> taskRepository.countByRejected(true), this::isOpen);
+    }
+
+    /**
+     * Record the saved alerts as pending index writes in the current transaction
+     */
+    public void enqueue(Collection<Alert> alerts) {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        for (Alert alert : alerts) {
+            entityManager.persist(new AlertIndexTask(alert.getId(), 0, now, null, false));
+        }
+    }
+
+    public boolean isOpen() {
+        return System.currentTimeMillis() < openUntil;
+    }
+
+    @Scheduled(fixedDelayString = "${elasticsearch.outbox.interval:1000}")
+    public void drain() {
+        try {
+            // Keep going while batches come back full, so a backlog clears without waiting
+            int sent = batchSize;
+            while (sent == batchSize && !isOpen()) {
+                sent = send();
+            }
+        } catch (Exception e) {
+            log.error("Error draining the Elasticsearch outbox", e);
+        }
+    }
+
+    /**
+     * Send one batch of due tasks
+     *
+     * @return the number of tasks taken
+     */
+    private int send() {
+        List<AlertIndexTask> tasks = taskRepository.findDue(LocalDateTime.now(ZoneOffset.UTC), PageRequest.of(0, batchSize));
+        if (tasks.isEmpty()) {
+            return 0;
+        }
+        Map<Long, Alert> alerts = alertRepository.findWithDeviceByIdIn(tasks.stream().map(AlertIndexTask::getAlertId).toList())
+                .stream()
+                .collect(Collectors.toMap(Alert::getId, Function.identity()));
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        if (alerts.isEmpty()) {
+            // All dropped by retention since, nothing to send
+            transaction.executeWithoutResult(status -> taskRepository.deleteAllByIdInBatch(
+                    tasks.stream().map(AlertIndexTask::getAlertId).toList()));
+            return tasks.size();
+        }
+
+        Map<Long, String> rejected;
+        try {
+            rejected = elasticsearchService.indexAlerts(new ArrayList<>(alerts.values()));
+        } catch (Exception e) {
+            requestFailed(e);
+            return 0;
+        }
+        requestSucceeded();
+
+        // Tasks of alerts dropped by retention since are done as well
+        List<Long> done = new ArrayList<>(tasks.size());
+        List<AlertIndexTask> updated = new ArrayList<>();
+        int abandoned = 0;
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        for (AlertIndexTask task : tasks) {
+            String error = rejected.get(task.getAlertId());
+            if (error == null) {
+                done.add(task.getAlertId());
+                continue;
+            }
+            task.setAttempts(task.getAttempts() + 1);
+            task.setLastError(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+            if (task.getAttempts() >= maxAttempts) {
+                task.setRejected(true);
+                abandoned++;
+                log.warn("Giving up indexing alert {} after {} attempts: {}", task.getAlertId(), maxAttempts, error);
+            } else {
+                task.setNextAttempt(now.plusNanos(backoff(task.getAttempts()) * 1_000_000));
+            }
+            updated.add(task);
+        }
+
+        transaction.executeWithoutResult(status -> {
+            taskRepository.deleteAllByIdInBatch(done);
+            taskRepository.saveAll(updated);
+        });
+        if (!rejected.isEmpty()) {
+            log.warn("Elasticsearch rejected {} of {} alerts, {} will be retried",
+                    rejected.size(), alerts.size(), updated.size() - abandoned);
+        }
+        return tasks.size();
+    }
+
+    /**
+     * Delay before the next attempt after the given number of rejections
+     */
+    private long backoff(int attempts) {
+        return Math.min(maxBackoff, initialBackoff << Math.min(attempts - 1, 30));
+    }
+
+    private void requestSucceeded() {
+        if (consecutiveOpens > 0) {
+            log.info("Elasticsearch is reachable again, resuming indexing");
+        }
+        consecutiveFailures = 0;
+        consecutiveOpens = 0;
+    }
+
+    private void requestFailed(Exception e) {
+        consecutiveFailures++;
+        // A failed trial after opening reopens at once
+        if (consecutiveFailures < failureThreshold && consecutiveOpens == 0) {
+            log.warn("Elasticsearch bulk request failed ({} in a row): {}", consecutiveFailures, e.getMessage());
+            return;
+        }
+        long duration = Math.min(Math.max(maxBackoff, openDuration), openDuration << Math.min(consecutiveOpens, 30));
+        consecutiveOpens++;
+        openUntil = System.currentTimeMillis() + duration;
+        log.warn("Elasticsearch unavailable after {} failed requests, pausing indexing for {} ms: {}",
+                consecutiveFailures, duration, e.getMessage());
+    }
+}
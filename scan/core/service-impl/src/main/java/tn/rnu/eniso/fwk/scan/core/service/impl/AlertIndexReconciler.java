@@ -0,0 +1,66 @@
+package tn.rnu.eniso.fwk.scan.core.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.rnu.eniso.fwk.scan.core.dal.repository.AlertIndexTaskRepository;
+import tn.rnu.eniso.fwk.scan.core.dal.repository.AlertRepository;
+import tn.rnu.eniso.fwk.scan.core.infra.model.Alert;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Queues alerts that have no Elasticsearch document ID and no outbox task, i.e. rows
+ * stored before ingest assigned document IDs. Each gets a document ID and a task, in
+ * keyset batches. Alerts whose task the outbox marked rejected are left alone. Tasks
+ * whose alert retention has removed since are deleted.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class AlertIndexReconciler {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final AlertRepository alertRepository;
+    private final AlertIndexTaskRepository taskRepository;
+    private final AlertIndexOutbox indexOutbox;
+    private final PlatformTransactionManager transactionManager;
+
+    @Scheduled(fixedDelayString = "${elasticsearch.reconcile.interval:3600000}",
+            initialDelayString = "${elasticsearch.reconcile.initial-delay:60000}")
+    public void reconcile() {
+        try {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            int orphans = transaction.execute(status -> taskRepository.deleteOrphans());
+            if (orphans > 0) {
+                log.info("Deleted {} Elasticsearch outbox tasks of removed alerts", orphans);
+            }
+            long queued = 0;
+            Long after = 0L;
+            while (after != null) {
+                Long from = after;
+                List<Alert> batch = transaction.execute(status -> {
+                    List<Alert> rows = alertRepository.findNotIndexed(from, PageRequest.ofSize(BATCH_SIZE));
+                    for (Alert alert : rows) {
+                        alert.setElasticsearchId(UUID.randomUUID().toString());
+                    }
+                    indexOutbox.enqueue(rows);
+                    return rows;
+                });
+                queued += batch.size();
+                after = batch.size() < BATCH_SIZE ? null : batch.getLast().getId();
+            }
+            if (queued > 0) {
+                log.info("Queued {} alerts missing from Elasticsearch for indexing", queued);
+            }
+        } catch (Exception e) {
+            log.error("Error reconciling alerts with Elasticsearch", e);
+        }
+    }
+}
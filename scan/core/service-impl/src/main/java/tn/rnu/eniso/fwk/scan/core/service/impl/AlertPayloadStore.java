@@ -0,0 +1,169 @@
+package tn.rnu.eniso.fwk.scan.core.service.impl;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.rnu.eniso.fwk.scan.core.dal.repository.AlertPayloadRepository;
+import tn.rnu.eniso.fwk.scan.core.infra.model.Alert;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertPayload;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Moves alert payloads into the {@link AlertPayload} side table. EVE payloads are base64,
+ * so they are decoded back to the packet bytes before being deflated; anything that does
+ * not round-trip exactly is stored as UTF-8 text instead.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class AlertPayloadStore {
+
+    private static final byte TEXT = 0;
+    private static final byte BASE64 = 1;
+    private static final int MIGRATION_BATCH_SIZE = 1000;
+
+    private final AlertPayloadRepository payloadRepository;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Persist the payloads of saved alerts in the current transaction and drop them from the
+     * alerts, so that nothing downstream holds or sends them
+     */
+    public void store(Collection<Alert> alerts) {
+        for (Alert alert : alerts) {
+            String payload = alert.getPayload();
+            if (payload != null && !payload.isEmpty()) {
+                entityManager.persist(new AlertPayload(alert.getId(), alert.getTimestamp().toLocalDate(), encode(payload)));
+            }
+            alert.setPayload(null);
+        }
+    }
+
+    /**
+     * Payload of an alert, or null if it has none
+     */
+    public String load(Long alertId) {
+        return payloadRepository.findById(alertId).map(p -> decode(p.getData())).orElse(null);
+    }
+
+    static byte[] encode(String payload) {
+        byte encoding = TEXT;
+        byte[] bytes = null;
+        try {
+            bytes = Base64.getDecoder().decode(payload);
+            if (Base64.getEncoder().encodeToString(bytes).equals(payload)) {
+                encoding = BASE64;
+            }
+        } catch (IllegalArgumentException e) {
+            // Not base64, kept as text
+        }
+        if (encoding == TEXT) {
+            bytes = payload.getBytes(StandardCharsets.UTF_8);
+        }
+
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 16);
+            out.write(encoding);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static String decode(byte[] data) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, 1, data.length - 1);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 3);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Truncated alert payload");
+                }
+                out.write(buffer, 0, n);
+            }
+            byte[] bytes = out.toByteArray();
+            return data[0] == BASE64 ? Base64.getEncoder().encodeToString(bytes) : new String(bytes, StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt alert payload", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Move payloads of alerts stored before the side table existed out of their old column,
+     * which is left in place but emptied
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @SuppressWarnings("unchecked")
+    public void migrateAlertColumn() {
+        try {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            Number legacyColumn = transaction.execute(status -> (Number) entityManager.createNativeQuery(
+                            "SELECT COUNT(*) FROM information_schema.columns"
+                                    + " WHERE LOWER(table_name) = 'alert' AND LOWER(column_name) = 'payload'")
+                    .getSingleResult());
+            if (legacyColumn == null || legacyColumn.intValue() == 0) {
+                return;
+            }
+            long moved = 0;
+            int batch;
+            do {
+                batch = transaction.execute(status -> {
+                    List<Object[]> rows = entityManager.createNativeQuery(
+                                    "SELECT id, payload, timestamp FROM alert WHERE payload IS NOT NULL ORDER BY id")
+                            .setMaxResults(MIGRATION_BATCH_SIZE)
+                            .getResultList();
+                    List<Long> ids = new ArrayList<>(rows.size());
+                    for (Object[] row : rows) {
+                        Long id = ((Number) row[0]).longValue();
+                        String payload = (String) row[1];
+                        if (!payload.isEmpty() && !payloadRepository.existsById(id)) {
+                            entityManager.persist(new AlertPayload(id,
+                                    ((Timestamp) row[2]).toLocalDateTime().toLocalDate(), encode(payload)));
+                        }
+                        ids.add(id);
+                    }
+                    if (!ids.isEmpty()) {
+                        entityManager.flush();
+                        entityManager.createNativeQuery("UPDATE alert SET payload = NULL WHERE id IN (:ids)")
+                                .setParameter("ids", ids)
+                                .executeUpdate();
+                    }
+                    return rows.size();
+                });
+                moved += batch;
+            } while (batch == MIGRATION_BATCH_SIZE);
+            if (moved > 0) {
+                log.info("Moved {} alert payloads to the payload table", moved);
+            }
+        } catch (Exception e) {
+            log.error("Error moving alert payloads to the payload table", e);
+        }
+    }
+}
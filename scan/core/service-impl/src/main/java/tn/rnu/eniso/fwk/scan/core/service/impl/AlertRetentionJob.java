@@ -0,0 +1,78 @@
+package tn.rnu.eniso.fwk.scan.core.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.rnu.eniso.fwk.scan.core.dal.repository.AlertPayloadRepository;
+import tn.rnu.eniso.fwk.scan.core.dal.repository.AlertRepository;
+import tn.rnu.eniso.fwk.scan.core.service.api.ElasticsearchService;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+/**
+ * Drops alerts older than {@code suricata.retention.days} a whole day at a time: the
+ * Elasticsearch indices of expired days, and the alert and payload rows of each expired
+ * partition day with one statement per table and day. Rollups are kept, so histograms
+ * still cover expired days.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class AlertRetentionJob {
+
+    private final AlertRepository alertRepository;
+    private final AlertPayloadRepository payloadRepository;
+    private final ElasticsearchService elasticsearchService;
+    private final PlatformTransactionManager transactionManager;
+
+    // 0 keeps alerts forever
+    @Value("${suricata.retention.days:0}")
+    private int retentionDays;
+
+    /**
+     * Assign partition days to rows stored before the column existed
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void fillPartitionDays() {
+        try {
+            Integer filled = new TransactionTemplate(transactionManager)
+                    .execute(status -> alertRepository.fillPartitionDays());
+            if (filled != null && filled > 0) {
+                log.info("Assigned partition days to {} alerts", filled);
+            }
+        } catch (Exception e) {
+            log.error("Error assigning alert partition days", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${suricata.retention.interval:3600000}",
+            initialDelayString = "${suricata.retention.initial-delay:300000}")
+    public void purge() {
+        if (retentionDays <= 0) {
+            return;
+        }
+        LocalDate cutoff = LocalDate.now(ZoneOffset.UTC).minusDays(retentionDays);
+        elasticsearchService.deleteIndicesBefore(cutoff);
+        try {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            LocalDate oldest;
+            while ((oldest = alertRepository.findOldestPartitionDay()) != null && oldest.isBefore(cutoff)) {
+                LocalDate day = oldest;
+                Integer deleted = transaction.execute(status -> {
+                    payloadRepository.deletePartition(day);
+                    return alertRepository.deletePartition(day);
+                });
+                log.info("Dropped alert partition {}: {} alerts", day, deleted);
+            }
+        } catch (Exception e) {
+            log.error("Error dropping alert partitions older than {}", cutoff, e);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package tn.rnu.eniso.fwk.scan.core.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.rnu.eniso.fwk.scan.core.dal.repository.AlertRollupRepository;
+import tn.rnu.eniso.fwk.scan.core.infra.model.Alert;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertRollup;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertSeverity;
+import tn.rnu.eniso.fwk.scan.core.infra.model.RollupResolution;
+
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Maintains the {@link AlertRollup} table. Committed alerts are added to per-minute
+ * deltas in memory, which a scheduled flush adds to the minute rollups. A second task
+ * compacts minute rollups older than {@code suricata.rollup.minute-retention-hours} into
+ * hours, and hours older than {@code suricata.rollup.hour-retention-days} into days. Both
+ * tasks take the write lock, so the table has a single writer whatever thread they run on.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class AlertRollupWriter {
+
+    private static final int IN_CLAUSE_SIZE = 500;
+
+    private final AlertRollupRepository rollupRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${suricata.rollup.minute-retention-hours:48}")
+    private int minuteRetentionHours;
+
+    @Value("${suricata.rollup.hour-retention-days:35}")
+    private int hourRetentionDays;
+
+    // Held while writing the table; record() only takes the monitor, so ingest never waits on it
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private Map<Key, Long> pending = new HashMap<>();
+
+    public synchronized void record(Collection<Alert> alerts) {
+        for (Alert alert : alerts) {
+            Key key = new Key(RollupResolution.MINUTE.truncate(alert.getTimestamp()), alert.getSeverity(),
+                    alert.getCategory());
+            pending.merge(key, alert.getCount() != null ? alert.getCount() : 1, Long::sum);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${suricata.rollup.flush-interval:5000}")
+    public void flush() {
+        writeLock.lock();
+        try {
+            Map<Key, Long> deltas = takePending();
+            if (deltas.isEmpty()) {
+                return;
+            }
+            try {
+                new TransactionTemplate(transactionManager)
+                        .executeWithoutResult(status -> upsert(RollupResolution.MINUTE, deltas));
+            } catch (Exception e) {
+                log.error("Error writing {} alert rollups, retrying with the next flush", deltas.size(), e);
+                restore(deltas);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${suricata.rollup.compaction.interval:3600000}",
+            initialDelayString = "${suricata.rollup.compaction.initial-delay:60000}")
+    public void compact() {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        writeLock.lock();
+        try {
+            int minutes = compact(RollupResolution.MINUTE, RollupResolution.HOUR, now.minusHours(minuteRetentionHours));
+            int hours = compact(RollupResolution.HOUR, RollupResolution.DAY, now.minusDays(hourRetentionDays));
+            if (minutes + hours > 0) {
+                log.info("Compacted {} minute and {} hourly alert rollups", minutes, hours);
+            }
+        } catch (Exception e) {
+            log.error("Error compacting alert rollups", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * Fold rollups older than {@code before} into the coarser resolution, one day per
+     * transaction. Only whole target buckets are folded, so minutes that arrive late for
+     * an already compacted hour are added to it by a later run.
+     */
+    private int compact(RollupResolution from, RollupResolution to, LocalDateTime before) {
+        LocalDateTime cutoff = to.truncate(before);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int compacted = 0;
+        while (true) {
+            Optional<AlertRollup> oldest = rollupRepository.findFirstByResolutionAndBucketStartBeforeOrderByBucketStart(from, cutoff);
+            if (oldest.isEmpty()) {
+                return compacted;
+            }
+            LocalDateTime sliceStart = RollupResolution.DAY.truncate(oldest.get().getBucketStart());
+            LocalDateTime sliceEnd = sliceStart.plusDays(1).isBefore(cutoff) ? sliceStart.plusDays(1) : cutoff;
+            compacted += transaction.execute(status -> {
+                List<AlertRollup> rows = rollupRepository.findSlice(from, sliceStart, sliceEnd);
+                Map<Key, Long> totals = new HashMap<>();
+                for (AlertRollup row : rows) {
+                    Key key = new Key(to.truncate(row.getBucketStart()), row.getSeverity(), row.getCategory());
+                    totals.merge(key, row.getCount(), Long::sum);
+                }
+                upsert(to, totals);
+                rollupRepository.deleteAllInBatch(rows);
+                return rows.size();
+            });
+        }
+    }
+
+    private void upsert(RollupResolution resolution, Map<Key, Long> deltas) {
+        List<LocalDateTime> buckets = deltas.keySet().stream().map(Key::bucketStart).distinct().toList();
+        Map<Key, AlertRollup> existing = new HashMap<>();
+        for (int i = 0; i < buckets.size(); i += IN_CLAUSE_SIZE) {
+            List<LocalDateTime> chunk = buckets.subList(i, Math.min(i + IN_CLAUSE_SIZE, buckets.size()));
+            for (AlertRollup rollup : rollupRepository.findByResolutionAndBucketStartIn(resolution, chunk)) {
+                existing.put(new Key(rollup.getBucketStart(), rollup.getSeverity(), rollup.getCategory()), rollup);
+            }
+        }
+
+        List<AlertRollup> changed = new ArrayList<>(deltas.size());
+        deltas.forEach((key, delta) -> {
+            AlertRollup rollup = existing.get(key);
+            if (rollup == null) {
+                rollup = new AlertRollup(null, resolution, key.bucketStart(), key.severity(), key.category(), 0);
+            }
+            rollup.setCount(rollup.getCount() + delta);
+            changed.add(rollup);
+        });
+        rollupRepository.saveAll(changed);
+    }
+
+    private synchronized Map<Key, Long> takePending() {
+        Map<Key, Long> deltas = pending;
+        pending = new HashMap<>();
+        return deltas;
+    }
+
+    private synchronized void restore(Map<Key, Long> deltas) {
+        deltas.forEach((key, delta) -> pending.merge(key, delta, Long::sum));
+    }
+
+    private record Key(LocalDateTime bucketStart, AlertSeverity severity, String category) {
+    }
+}
@@ -0,0 +1,195 @@
+package tn.rnu.eniso.fwk.scan.core.service.impl;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.rnu.eniso.fwk.scan.core.dal.repository.AlertRepository;
+import tn.rnu.eniso.fwk.scan.core.dal.repository.AlertSignatureRepository;
+import tn.rnu.eniso.fwk.scan.core.infra.model.Alert;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertSignature;
+
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory intern table over {@link AlertSignature}, loaded at startup. The parser looks
+ * rules up without locking; a rule seen for the first time, or with a message or category
+ * not seen before, is written in its own transaction under the dictionary lock, so
+ * concurrent parsers never insert the same entry twice. Entries are never modified: a
+ * new revision of a rule gets an entry of its own, and alerts keep the text they were
+ * raised with. Text longer than its column is stored cut short, but the entry is still
+ * told apart by the hash of the full text.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class AlertSignatureDictionary {
+
+    private final AlertSignatureRepository signatureRepository;
+    private final AlertRepository alertRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+
+    private final Map<RuleKey, AlertSignature> byRule = new ConcurrentHashMap<>();
+    private final Map<Long, AlertSignature> byId = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void load() {
+        try {
+            signatureRepository.findAll().forEach(this::put);
+            migrateAlertColumns();
+            log.info("Loaded {} alert signatures", byId.size());
+        } catch (Exception e) {
+            log.error("Error loading alert signatures, they will be read again as alerts arrive", e);
+        }
+    }
+
+    /**
+     * Dictionary entry for a rule with the given message and category, added if there is
+     * none yet. Throws if a new entry could not be stored.
+     */
+    public AlertSignature intern(Long generatorId, Long signatureId, String signature, String category) {
+        RuleKey key = RuleKey.of(generatorId, signatureId, signature, category);
+        AlertSignature entry = byRule.get(key);
+        return entry != null ? entry : store(key);
+    }
+
+    /**
+     * Point alerts without a dictionary entry at one, sharing its strings. Throws if an
+     * entry could not be stored, so the alerts are not saved without one.
+     */
+    public void resolve(Collection<Alert> alerts) {
+        for (Alert alert : alerts) {
+            if (alert.getSignatureRef() == null && (alert.getSignatureId() != null || alert.getSignature() != null)) {
+                apply(alert, intern(alert.getGeneratorId(), alert.getSignatureId(), alert.getSignature(), alert.getCategory()));
+            }
+        }
+    }
+
+    /**
+     * Set the alert's dictionary entry and replace its message and category by the
+     * entry's copies, so parsed alerts do not each hold their own. If the entry cannot be
+     * stored the alert keeps its own strings and is resolved again when saved.
+     */
+    public void assign(Alert alert) {
+        try {
+            apply(alert, intern(alert.getGeneratorId(), alert.getSignatureId(), alert.getSignature(), alert.getCategory()));
+        } catch (Exception e) {
+            log.warn("Error storing alert signature {}:{}: {}", alert.getGeneratorId(), alert.getSignatureId(), e.getMessage());
+        }
+    }
+
+    public AlertSignature get(Long id) {
+        return id != null ? byId.get(id) : null;
+    }
+
+    private static void apply(Alert alert, AlertSignature entry) {
+        alert.setSignatureRef(entry);
+        alert.setSignature(entry.getSignature());
+        alert.setCategory(entry.getCategory());
+    }
+
+    private synchronized AlertSignature store(RuleKey key) {
+        AlertSignature entry = byRule.get(key);
+        if (entry != null) {
+            return entry;
+        }
+        String textHash = textHash(key.signature(), key.category());
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // Another instance may have stored the entry since this one loaded the dictionary
+        AlertSignature stored = transaction.execute(status -> signatureRepository
+                .findByGeneratorIdAndSignatureIdAndTextHash(key.generatorId(), key.signatureId(), textHash)
+                .orElseGet(() -> signatureRepository.save(new AlertSignature(null, key.generatorId(), key.signatureId(),
+                        textHash, truncate(key.signature(), AlertSignature.SIGNATURE_LENGTH),
+                        truncate(key.category(), AlertSignature.CATEGORY_LENGTH)))));
+        // Keyed on the full text, which a cut short entry no longer holds
+        byRule.put(key, stored);
+        put(stored);
+        return stored;
+    }
+
+    private void put(AlertSignature entry) {
+        byRule.put(RuleKey.of(entry.getGeneratorId(), entry.getSignatureId(), entry.getSignature(), entry.getCategory()), entry);
+        byId.put(entry.getId(), entry);
+    }
+
+    private static String truncate(String text, int length) {
+        return text != null && text.length() > length ? text.substring(0, length) : text;
+    }
+
+    /**
+     * SHA-256 of the message and category, which tells the entries of one rule apart
+     */
+    static String textHash(String signature, String category) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            // A marker byte per field keeps null apart from the empty string
+            for (String text : new String[]{signature, category}) {
+                digest.update((byte) (text != null ? 1 : 0));
+                if (text != null) {
+                    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+                    digest.update(intBytes(bytes.length));
+                    digest.update(bytes);
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] intBytes(int value) {
+        return new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+    }
+
+    /**
+     * Move rule messages and categories of alerts stored before the dictionary existed into
+     * it. Those alerts still have their own signature and category columns, which are left
+     * in place but no longer read.
+     */
+    @SuppressWarnings("unchecked")
+    private void migrateAlertColumns() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Number legacyColumns = transaction.execute(status -> (Number) entityManager.createNativeQuery(
+                        "SELECT COUNT(*) FROM information_schema.columns"
+                                + " WHERE LOWER(table_name) = 'alert' AND LOWER(column_name) IN ('signature', 'category')")
+                .getSingleResult());
+        if (legacyColumns == null || legacyColumns.intValue() < 2) {
+            return;
+        }
+        List<Object[]> rules = transaction.execute(status -> entityManager.createNativeQuery(
+                        "SELECT DISTINCT COALESCE(generator_id, 0), COALESCE(signature_id, 0), signature, category FROM alert"
+                                + " WHERE signature_ref_id IS NULL")
+                .getResultList());
+        long migrated = 0;
+        for (Object[] rule : rules) {
+            AlertSignature entry = intern(((Number) rule[0]).longValue(), ((Number) rule[1]).longValue(),
+                    (String) rule[2], (String) rule[3]);
+            migrated += transaction.execute(status -> alertRepository.assignSignatureRef(entry.getId(),
+                    entry.getGeneratorId(), entry.getSignatureId(), (String) rule[2], (String) rule[3]));
+        }
+        if (migrated > 0) {
+            log.info("Moved signatures of {} alerts into the signature dictionary", migrated);
+        }
+    }
+
+    private record RuleKey(long generatorId, long signatureId, String signature, String category) {
+
+        static RuleKey of(Long generatorId, Long signatureId, String signature, String category) {
+            return new RuleKey(generatorId != null ? generatorId : 0, signatureId != null ? signatureId : 0,
+                    signature, category);
+        }
+    }
+}
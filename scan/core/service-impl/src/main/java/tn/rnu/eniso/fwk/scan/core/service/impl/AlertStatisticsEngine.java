@@ -0,0 +1,507 @@
+package tn.rnu.eniso.fwk.scan.core.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.rnu.eniso.fwk.scan.core.dal.repository.AlertRepository;
+import tn.rnu.eniso.fwk.scan.core.infra.model.Alert;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertDimension;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertDistinctCounts;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertSeverity;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertSignature;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertStatistics;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertTopK;
+
+import jakarta.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Alert statistics maintained incrementally by the ingest path.
+ * <p>
+ * Total and per-severity counts live in per-minute ring buffers covering the retention
+ * period, each indexed by a Fenwick tree so the count for any {@code since} window is two
+ * prefix sums. Per-key counts are kept in hourly buckets, plus minute buckets for the
+ * last two hours; for older windows the hour containing {@code since} is counted whole.
+ * Categories and sensors are counted exactly, while source IPs, destination IPs and
+ * signatures go through bounded {@link SpaceSaving} summaries whose merge reports an
+ * error bound with every count.
+ * <p>
+ * Distinct source IPs, destination IPs and signatures, overall and per signature, are
+ * {@link HyperLogLog} sketches in the hourly buckets, merged per query; the hour
+ * containing {@code since} is always counted whole.
+ * <p>
+ * The rings end at the current minute of the wall clock, not at the newest alert, so a
+ * sensor with a wrong clock cannot expire them. Alerts up to
+ * {@code suricata.stats.future-tolerance} ahead are counted in the current minute, later
+ * ones are left out.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class AlertStatisticsEngine {
+
+    private static final int MINUTE_KEY_HORIZON = 120;
+    private static final int TOP_N = 10;
+    private static final int TOTAL = 0;
+
+    private final AlertRepository alertRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final AlertSignatureDictionary signatureDictionary;
+
+    @Value("${suricata.stats.retention-hours:192}")
+    private int retentionHours;
+
+    @Value("${suricata.stats.top-k.capacity:256}")
+    private int topKCapacity;
+
+    @Value("${suricata.stats.distinct.precision:14}")
+    private int distinctPrecision;
+
+    @Value("${suricata.stats.distinct.signature-precision:10}")
+    private int signatureDistinctPrecision;
+
+    @Value("${suricata.stats.future-tolerance:300000}")
+    private long futureTolerance;
+
+    private int minutes;
+    private long[][] counts;
+    private long[][] trees;
+    private long headMinute;
+    private long coverageStart;
+
+    private KeyCounts[] minuteKeys;
+    private KeyCounts[] hourKeys;
+    private DistinctCounts[] hourDistinct;
+
+    private volatile boolean ready;
+
+    @PostConstruct
+    public void rebuild() {
+        minutes = retentionHours * 60;
+        int counters = AlertSeverity.values().length + 1;
+        counts = new long[counters][minutes];
+        trees = new long[counters][minutes + 1];
+        headMinute = Long.MIN_VALUE;
+        minuteKeys = new KeyCounts[MINUTE_KEY_HORIZON];
+        hourKeys = new KeyCounts[retentionHours];
+        hourDistinct = new DistinctCounts[retentionHours];
+
+        LocalDateTime since = LocalDateTime.now(ZoneOffset.UTC).minusHours(retentionHours);
+        coverageStart = toMinute(since);
+
+        try {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setReadOnly(true);
+            long rows = transaction.execute(status -> {
+                long now = advanceToNow();
+                long count = 0;
+                try (Stream<Object[]> stream = alertRepository.streamStatisticsRows(since)) {
+                    for (Object[] row : (Iterable<Object[]>) stream::iterator) {
+                        AlertSignature signature = signatureDictionary.get((Long) row[2]);
+                        record(now, (LocalDateTime) row[0], (AlertSeverity) row[1],
+                                signature != null ? signature.getCategory() : null, (String) row[3], (String) row[4],
+                                signature != null ? signature.getSignature() : null, (String) row[5],
+                                weight((Long) row[6]));
+                        count++;
+                    }
+                }
+                return count;
+            });
+            ready = true;
+            log.info("Rebuilt alert statistics from {} alerts", rows);
+        } catch (Exception e) {
+            log.error("Error rebuilding alert statistics, falling back to database queries", e);
+        }
+    }
+
+    /**
+     * Whether the window starting at {@code since} is fully held in memory
+     */
+    public synchronized boolean covers(LocalDateTime since) {
+        advanceToNow();
+        return ready && toMinute(since) >= Math.max(coverageStart, headMinute - minutes + 1);
+    }
+
+    public synchronized void record(Collection<Alert> alerts) {
+        long now = advanceToNow();
+        for (Alert alert : alerts) {
+            record(now, alert.getTimestamp(), alert.getSeverity(), alert.getCategory(),
+                    alert.getSourceIp(), alert.getDestIp(), alert.getSignature(), alert.getSensor(),
+                    weight(alert.getCount()));
+        }
+    }
+
+    public synchronized AlertStatistics getStatistics(LocalDateTime since) {
+        advanceToNow();
+        AlertStatistics stats = new AlertStatistics();
+        long sinceMinute = toMinute(since);
+
+        stats.setTotalAlerts(count(TOTAL, sinceMinute));
+        stats.setCriticalAlerts(count(counter(AlertSeverity.CRITICAL), sinceMinute));
+        stats.setHighAlerts(count(counter(AlertSeverity.HIGH), sinceMinute));
+        stats.setMediumAlerts(count(counter(AlertSeverity.MEDIUM), sinceMinute));
+        stats.setLowAlerts(count(counter(AlertSeverity.LOW), sinceMinute));
+
+        KeyTotals keys = keyCounts(sinceMinute);
+        stats.setAlertsByCategory(top(keys.categories, Integer.MAX_VALUE));
+        stats.setTopSourceIps(top(keys.sourceIps, TOP_N));
+        stats.setTopDestIps(top(keys.destIps, TOP_N));
+        stats.setTopSignatures(top(keys.signatures, TOP_N));
+        stats.setAlertsBySensor(top(keys.sensors, Integer.MAX_VALUE));
+
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        stats.setAlertsLastHour(count(TOTAL, toMinute(now.minusHours(1))));
+        stats.setAlertsLast24Hours(count(TOTAL, toMinute(now.minusDays(1))));
+        stats.setAlertsLast7Days(count(TOTAL, toMinute(now.minusDays(7))));
+
+        return stats;
+    }
+
+    /**
+     * Approximate most frequent values of a dimension since the given time, at most the
+     * summary capacity of them
+     */
+    public synchronized AlertTopK getTopK(AlertDimension dimension, LocalDateTime since, int limit) {
+        advanceToNow();
+        SpaceSaving.Merged merged = keyCounts(toMinute(since)).get(dimension);
+        List<AlertTopK.Entry> entries = merged.top(Math.min(limit, topKCapacity)).stream()
+                .map(e -> new AlertTopK.Entry(e.key(), e.count(), e.error()))
+                .toList();
+        return new AlertTopK(dimension, since, false, merged.maxError(), entries);
+    }
+
+    /**
+     * Approximate distinct counts from the start of the hour containing {@code since},
+     * for one signature or, when it is null, for all alerts
+     */
+    public synchronized AlertDistinctCounts getDistinctCounts(LocalDateTime since, String signature) {
+        advanceToNow();
+        long fromHour = Math.floorDiv(toMinute(since), 60);
+        return distinctCounts(fromHour, Math.max(headHour(), fromHour - 1), signature);
+    }
+
+    /**
+     * Approximate distinct counts of every hour from the one containing {@code since}
+     */
+    public synchronized List<AlertDistinctCounts> getHourlyDistinctCounts(LocalDateTime since, String signature) {
+        advanceToNow();
+        List<AlertDistinctCounts> hours = new ArrayList<>();
+        for (long h = Math.floorDiv(toMinute(since), 60); h <= headHour(); h++) {
+            hours.add(distinctCounts(h, h, signature));
+        }
+        return hours;
+    }
+
+    private void record(long now, LocalDateTime timestamp, AlertSeverity severity, String category,
+                        String sourceIp, String destIp, String signature, String sensor, long weight) {
+        long minute = toMinute(timestamp);
+        if (minute > now) {
+            if (minute - now > futureTolerance / 60_000) {
+                log.debug("Leaving alert dated {} out of statistics, it is in the future", timestamp);
+                return;
+            }
+            minute = now;
+        }
+        if (minute <= headMinute - minutes) {
+            return;
+        }
+
+        int slot = (int) Math.floorMod(minute, (long) minutes);
+        add(TOTAL, slot, weight);
+        add(counter(severity), slot, weight);
+
+        if (minute > headMinute - MINUTE_KEY_HORIZON) {
+            bucket(minuteKeys, minute).add(category, sourceIp, destIp, signature, sensor, weight);
+        }
+        long hour = Math.floorDiv(minute, 60);
+        if (hour > Math.floorDiv(headMinute, 60) - retentionHours) {
+            bucket(hourKeys, hour).add(category, sourceIp, destIp, signature, sensor, weight);
+            distinct(hour).add(sourceIp, destIp, signature);
+        }
+    }
+
+    /**
+     * Move the head to the current minute
+     *
+     * @return the head minute
+     */
+    private long advanceToNow() {
+        advance(toMinute(LocalDateTime.now(ZoneOffset.UTC)));
+        return headMinute;
+    }
+
+    /**
+     * Move the head forward, clearing the counter slots of minutes that fall out of the ring
+     */
+    private void advance(long minute) {
+        if (minute <= headMinute) {
+            return;
+        }
+        if (headMinute == Long.MIN_VALUE || minute - headMinute >= minutes) {
+            for (int c = 0; c < counts.length; c++) {
+                Arrays.fill(counts[c], 0);
+                Arrays.fill(trees[c], 0);
+            }
+        } else {
+            for (long m = headMinute + 1; m <= minute; m++) {
+                int slot = (int) Math.floorMod(m, (long) minutes);
+                for (int c = 0; c < counts.length; c++) {
+                    if (counts[c][slot] != 0) {
+                        add(c, slot, -counts[c][slot]);
+                    }
+                }
+            }
+        }
+        headMinute = minute;
+    }
+
+    private long count(int counter, long sinceMinute) {
+        if (headMinute == Long.MIN_VALUE) {
+            return 0;
+        }
+        long from = Math.max(sinceMinute, headMinute - minutes + 1);
+        if (from > headMinute) {
+            return 0;
+        }
+        int fromSlot = (int) Math.floorMod(from, (long) minutes);
+        int toSlot = (int) Math.floorMod(headMinute, (long) minutes);
+        if (fromSlot <= toSlot) {
+            return prefix(counter, toSlot) - prefix(counter, fromSlot - 1);
+        }
+        return prefix(counter, minutes - 1) - prefix(counter, fromSlot - 1) + prefix(counter, toSlot);
+    }
+
+    private KeyTotals keyCounts(long sinceMinute) {
+        KeyTotals result = new KeyTotals();
+        if (headMinute == Long.MIN_VALUE) {
+            return result;
+        }
+
+        // Minute buckets cover whole hours from split onwards, hour buckets everything before
+        long split = Math.floorDiv(headMinute - MINUTE_KEY_HORIZON + 1 + 59, 60) * 60;
+        for (long m = Math.max(sinceMinute, split); m <= headMinute; m++) {
+            merge(result, minuteKeys, m);
+        }
+        for (long h = Math.floorDiv(sinceMinute, 60); h < split / 60; h++) {
+            merge(result, hourKeys, h);
+        }
+        return result;
+    }
+
+    private void merge(KeyTotals result, KeyCounts[] ring, long index) {
+        KeyCounts bucket = ring[(int) Math.floorMod(index, (long) ring.length)];
+        if (bucket != null && bucket.index == index) {
+            result.merge(bucket);
+        }
+    }
+
+    private KeyCounts bucket(KeyCounts[] ring, long index) {
+        int slot = (int) Math.floorMod(index, (long) ring.length);
+        KeyCounts bucket = ring[slot];
+        if (bucket == null || bucket.index != index) {
+            bucket = new KeyCounts(index, topKCapacity);
+            ring[slot] = bucket;
+        }
+        return bucket;
+    }
+
+    private DistinctCounts distinct(long hour) {
+        int slot = (int) Math.floorMod(hour, (long) hourDistinct.length);
+        DistinctCounts bucket = hourDistinct[slot];
+        if (bucket == null || bucket.index != hour) {
+            bucket = new DistinctCounts(hour, distinctPrecision, signatureDistinctPrecision);
+            hourDistinct[slot] = bucket;
+        }
+        return bucket;
+    }
+
+    private AlertDistinctCounts distinctCounts(long fromHour, long toHour, String signature) {
+        int precision = signature != null ? signatureDistinctPrecision : distinctPrecision;
+        HyperLogLog sourceIps = new HyperLogLog(precision);
+        HyperLogLog destIps = new HyperLogLog(precision);
+        HyperLogLog signatures = signature != null ? null : new HyperLogLog(precision);
+
+        for (long h = fromHour; h <= toHour; h++) {
+            DistinctCounts bucket = hourDistinct[(int) Math.floorMod(h, (long) hourDistinct.length)];
+            if (bucket == null || bucket.index != h) {
+                continue;
+            }
+            if (signatures != null) {
+                sourceIps.merge(bucket.sourceIps);
+                destIps.merge(bucket.destIps);
+                signatures.merge(bucket.signatures);
+            } else {
+                SignatureDistinct bySignature = bucket.bySignature.get(signature);
+                if (bySignature != null) {
+                    sourceIps.merge(bySignature.sourceIps);
+                    destIps.merge(bySignature.destIps);
+                }
+            }
+        }
+        return new AlertDistinctCounts(toHourStart(fromHour), toHourStart(toHour + 1), signature, false,
+                HyperLogLog.relativeError(precision), sourceIps.estimate(), destIps.estimate(),
+                signatures != null ? signatures.estimate() : null);
+    }
+
+    private long headHour() {
+        return headMinute == Long.MIN_VALUE ? Long.MIN_VALUE : Math.floorDiv(headMinute, 60);
+    }
+
+    private void add(int counter, int slot, long delta) {
+        counts[counter][slot] += delta;
+        long[] tree = trees[counter];
+        for (int i = slot + 1; i <= minutes; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    private long prefix(int counter, int slot) {
+        long sum = 0;
+        long[] tree = trees[counter];
+        for (int i = slot + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Aggregated records count once per collapsed alert
+     */
+    private static long weight(Long count) {
+        return count != null ? count : 1;
+    }
+
+    private static int counter(AlertSeverity severity) {
+        return severity.ordinal() + 1;
+    }
+
+    private static long toMinute(LocalDateTime timestamp) {
+        return Math.floorDiv(timestamp.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    private static LocalDateTime toHourStart(long hour) {
+        return LocalDateTime.ofEpochSecond(hour * 3600, 0, ZoneOffset.UTC);
+    }
+
+    private static Map<String, Long> top(SpaceSaving.Merged summary, int limit) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        summary.top(limit).forEach(e -> result.put(e.key(), e.count()));
+        return result;
+    }
+
+    private static Map<String, Long> top(Map<String, Long> counts, int limit) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(limit)
+                .forEach(e -> result.put(e.getKey(), e.getValue()));
+        return result;
+    }
+
+    private static void increment(Map<String, Long> counts, String key, long weight) {
+        if (key != null) {
+            counts.merge(key, weight, Long::sum);
+        }
+    }
+
+    private static final class KeyCounts {
+
+        final long index;
+        final Map<String, Long> categories = new HashMap<>();
+        final Map<String, Long> sensors = new HashMap<>();
+        final SpaceSaving sourceIps;
+        final SpaceSaving destIps;
+        final SpaceSaving signatures;
+
+        KeyCounts(long index, int capacity) {
+            this.index = index;
+            this.sourceIps = new SpaceSaving(capacity);
+            this.destIps = new SpaceSaving(capacity);
+            this.signatures = new SpaceSaving(capacity);
+        }
+
+        void add(String category, String sourceIp, String destIp, String signature, String sensor, long weight) {
+            increment(categories, category, weight);
+            increment(sensors, sensor, weight);
+            sourceIps.add(sourceIp, weight);
+            destIps.add(destIp, weight);
+            signatures.add(signature, weight);
+        }
+    }
+
+    /**
+     * Per-key counts of several buckets combined for one query
+     */
+    private static final class KeyTotals {
+
+        final Map<String, Long> categories = new HashMap<>();
+        final Map<String, Long> sensors = new HashMap<>();
+        final SpaceSaving.Merged sourceIps = new SpaceSaving.Merged();
+        final SpaceSaving.Merged destIps = new SpaceSaving.Merged();
+        final SpaceSaving.Merged signatures = new SpaceSaving.Merged();
+
+        void merge(KeyCounts bucket) {
+            bucket.categories.forEach((k, v) -> increment(categories, k, v));
+            bucket.sensors.forEach((k, v) -> increment(sensors, k, v));
+            sourceIps.merge(bucket.sourceIps);
+            destIps.merge(bucket.destIps);
+            signatures.merge(bucket.signatures);
+        }
+
+        SpaceSaving.Merged get(AlertDimension dimension) {
+            return switch (dimension) {
+                case SOURCE_IP -> sourceIps;
+                case DEST_IP -> destIps;
+                case SIGNATURE -> signatures;
+            };
+        }
+    }
+
+    /**
+     * Distinct-value sketches of one hour
+     */
+    private static final class DistinctCounts {
+
+        final long index;
+        final int signaturePrecision;
+        final HyperLogLog sourceIps;
+        final HyperLogLog destIps;
+        final HyperLogLog signatures;
+        final Map<String, SignatureDistinct> bySignature = new HashMap<>();
+
+        DistinctCounts(long index, int precision, int signaturePrecision) {
+            this.index = index;
+            this.signaturePrecision = signaturePrecision;
+            this.sourceIps = new HyperLogLog(precision);
+            this.destIps = new HyperLogLog(precision);
+            this.signatures = new HyperLogLog(precision);
+        }
+
+        void add(String sourceIp, String destIp, String signature) {
+            sourceIps.add(sourceIp);
+            destIps.add(destIp);
+            signatures.add(signature);
+            if (signature != null) {
+                SignatureDistinct counts = bySignature.computeIfAbsent(signature,
+                        k -> new SignatureDistinct(new HyperLogLog(signaturePrecision), new HyperLogLog(signaturePrecision)));
+                counts.sourceIps.add(sourceIp);
+                counts.destIps.add(destIp);
+            }
+        }
+    }
+
+    private record SignatureDistinct(HyperLogLog sourceIps, HyperLogLog destIps) {
+    }
+}
@@ -0,0 +1,198 @@
+package tn.rnu.eniso.fwk.scan.core.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tn.rnu.eniso.fwk.scan.core.dal.repository.DeviceRepository;
+import tn.rnu.eniso.fwk.scan.core.infra.model.Device;
+import tn.rnu.eniso.fwk.scan.core.infra.util.IpAddresses;
+
+import jakarta.annotation.PostConstruct;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory IP to device lookup used to correlate alerts without querying the database.
+ * IPv4 addresses are kept in an open-addressing table keyed by their numeric value and
+ * IPv6 addresses in a map keyed by two longs. Readers use an immutable snapshot that is
+ * replaced whenever a scan completes; the newest device wins for a given IP. The index is
+ * built when the bean is created, so the ingest pipeline, which depends on it through the
+ * Suricata service, never correlates alerts against an empty index.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class DeviceCorrelationIndex {
+
+    private final DeviceRepository deviceRepository;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    @PostConstruct
+    public synchronized void rebuild() {
+        try {
+            List<Device> devices = deviceRepository.findAll(Sort.by("id"));
+            Snapshot rebuilt = Snapshot.EMPTY.with(devices);
+            snapshot = rebuilt;
+            log.info("Built device correlation index with {} addresses", rebuilt.size());
+        } catch (Exception e) {
+            log.error("Error building device correlation index, only devices of new scans will be correlated", e);
+        }
+    }
+
+    /**
+     * Add the devices of a completed scan once its transaction has committed
+     */
+    public void onScanCompleted(List<Device> devices) {
+        if (devices == null || devices.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update(devices);
+                }
+            });
+        } else {
+            update(devices);
+        }
+    }
+
+    /**
+     * Newest device seen with this IP address, or null
+     */
+    public Device find(String ipAddress) {
+        return snapshot.find(ipAddress);
+    }
+
+    private synchronized void update(List<Device> devices) {
+        snapshot = snapshot.with(devices);
+        log.debug("Updated device correlation index with {} devices", devices.size());
+    }
+
+    private static final class Snapshot {
+
+        private static final long FREE = -1;
+
+        static final Snapshot EMPTY = empty();
+
+        private final long[] ipv4Keys;
+        private final Device[] ipv4Devices;
+        private final int ipv4Count;
+        private final Map<Ipv6Key, Device> ipv6Devices;
+
+        private Snapshot(long[] ipv4Keys, Device[] ipv4Devices, int ipv4Count, Map<Ipv6Key, Device> ipv6Devices) {
+            this.ipv4Keys = ipv4Keys;
+            this.ipv4Devices = ipv4Devices;
+            this.ipv4Count = ipv4Count;
+            this.ipv6Devices = ipv6Devices;
+        }
+
+        private static Snapshot empty() {
+            long[] keys = new long[16];
+            Arrays.fill(keys, FREE);
+            return new Snapshot(keys, new Device[16], 0, Map.of());
+        }
+
+        int size() {
+            return ipv4Count + ipv6Devices.size();
+        }
+
+        Device find(String ip) {
+            long ipv4 = IpAddresses.parseIpv4(ip);
+            if (ipv4 >= 0) {
+                int mask = ipv4Keys.length - 1;
+                for (int slot = hash(ipv4) & mask; ipv4Keys[slot] != FREE; slot = (slot + 1) & mask) {
+                    if (ipv4Keys[slot] == ipv4) {
+                        return ipv4Devices[slot];
+                    }
+                }
+                return null;
+            }
+            Ipv6Key key = Ipv6Key.of(ip);
+            return key != null ? ipv6Devices.get(key) : null;
+        }
+
+        /**
+         * Copy of this snapshot with the given devices added, later entries replacing earlier ones
+         */
+        Snapshot with(List<Device> devices) {
+            int capacity = ipv4Keys.length;
+            while ((ipv4Count + devices.size()) * 2 > capacity) {
+                capacity *= 2;
+            }
+
+            long[] keys = new long[capacity];
+            Device[] values = new Device[capacity];
+            Arrays.fill(keys, FREE);
+            int count = 0;
+            for (int i = 0; i < ipv4Keys.length; i++) {
+                if (ipv4Keys[i] != FREE) {
+                    count += put(keys, values, ipv4Keys[i], ipv4Devices[i]);
+                }
+            }
+
+            Map<Ipv6Key, Device> ipv6 = new HashMap<>(ipv6Devices);
+            for (Device device : devices) {
+                if (device.getId() == null || device.getIpAddress() == null) {
+                    continue;
+                }
+                Device ref = reference(device);
+                long ipv4 = IpAddresses.parseIpv4(device.getIpAddress());
+                if (ipv4 >= 0) {
+                    count += put(keys, values, ipv4, ref);
+                } else {
+                    Ipv6Key key = Ipv6Key.of(device.getIpAddress());
+                    if (key != null) {
+                        ipv6.put(key, ref);
+                    }
+                }
+            }
+            return new Snapshot(keys, values, count, ipv6);
+        }
+
+        private static int put(long[] keys, Device[] values, long key, Device device) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (keys[slot] != FREE && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            boolean added = keys[slot] == FREE;
+            keys[slot] = key;
+            values[slot] = device;
+            return added ? 1 : 0;
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+
+        /**
+         * Detached copy without the scan session and ports, enough to set the alert's foreign key
+         */
+        private static Device reference(Device device) {
+            return new Device(device.getId(), device.getIpAddress(), device.getAddress(), device.getMacAddress(),
+                    device.getHostname(), device.getVendor(), device.getState(), null, null);
+        }
+    }
+
+    private record Ipv6Key(long high, long low) {
+
+        static Ipv6Key of(String ip) {
+            byte[] bytes = IpAddresses.parseIpv6(ip);
+            if (bytes == null) {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            return new Ipv6Key(buffer.getLong(), buffer.getLong());
+        }
+    }
+}
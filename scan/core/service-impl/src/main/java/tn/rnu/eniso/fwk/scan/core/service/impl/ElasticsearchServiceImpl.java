@@ -1,35 +1,55 @@
 package tn.rnu.eniso.fwk.scan.core.service.impl;
 
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
-import co.elastic.clients.elasticsearch.core.IndexResponse;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
 import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
 import co.elastic.clients.elasticsearch.core.search.Hit;
-import co.elastic.clients.elasticsearch.indices.CreateIndexResponse;
 import co.elastic.clients.elasticsearch.indices.ExistsRequest;
 import co.elastic.clients.json.JsonData;
 import co.elastic.clients.json.jackson.JacksonJsonpMapper;
 import co.elastic.clients.transport.rest_client.RestClientTransport;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.http.HttpHost;
 import org.elasticsearch.client.RestClient;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import tn.rnu.eniso.fwk.scan.core.infra.model.Alert;
 import tn.rnu.eniso.fwk.scan.core.service.api.ElasticsearchService;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
 
+/**
+ * Alerts are stored in one index per UTC day of their timestamp, named
+ * {@code <elasticsearch.index.alerts>-yyyy.MM.dd} and created on first write from an index
+ * template that adds them to the {@code elasticsearch.index.alerts} read alias. Time-bounded
+ * queries name only the daily indices overlapping their range, and retention deletes whole
+ * indices.
+ */
 @Service
 @Slf4j
+@RequiredArgsConstructor
 public class ElasticsearchServiceImpl implements ElasticsearchService {
 
+    private static final DateTimeFormatter INDEX_DAY = DateTimeFormatter.ofPattern("yyyy.MM.dd");
+
+    // Longer ranges read through the alias, where Elasticsearch skips non-matching shards itself
+    private static final int MAX_TARGET_DAYS = 31;
+
     @Value("${elasticsearch.host:localhost}")
     private String elasticsearchHost;
 
@@ -39,6 +59,11 @@ public class ElasticsearchServiceImpl implements ElasticsearchService {
     @Value("${elasticsearch.index.alerts:suricata-alerts}")
     private String alertsIndex;
 
+    private final SuricataMetrics metrics;
+
+    // Static index of older versions, still read until it is reindexed or deleted
+    private volatile boolean legacyIndex;
+
     private RestClient restClient;
     private ElasticsearchClient esClient;
 
@@ -76,25 +101,49 @@ public class ElasticsearchServiceImpl implements ElasticsearchService {
     }
 
     @Override
-    public String indexAlert(Alert alert) {
+    public Map<Long, String> indexAlerts(List<Alert> alerts) throws IOException {
+        if (esClient == null) {
+            throw new IOException("Elasticsearch client not initialized");
+        }
+        long start = System.nanoTime();
+        BulkResponse response;
         try {
-            IndexResponse response = esClient.index(i -> i
-                    .index(alertsIndex)
-                    .document(alert));
+            response = esClient.bulk(b -> {
+                for (Alert alert : alerts) {
+                    b.operations(op -> op
+                            .index(idx -> idx
+                                    .index(indexFor(alert))
+                                    .id(alert.getElasticsearchId())
+                                    .document(alert)));
+                }
+                return b;
+            });
+        } catch (IOException | RuntimeException e) {
+            metrics.indexed(alerts.size(), System.nanoTime() - start, false);
+            throw e;
+        }
 
-            log.debug("Indexed alert with ID: {}", response.id());
-            return response.id();
-        } catch (Exception e) {
-            log.error("Error indexing alert", e);
-            return null;
+        Map<Long, String> rejected = new HashMap<>();
+        List<BulkResponseItem> items = response.items();
+        for (int i = 0; i < items.size(); i++) {
+            BulkResponseItem item = items.get(i);
+            if (item.error() != null) {
+                Alert alert = alerts.get(i);
+                rejected.put(alert.getId(), item.error().type() + ": " + item.error().reason());
+                metrics.indexFailed(alert);
+            }
         }
+        metrics.indexed(items.size() - rejected.size(), System.nanoTime() - start, true);
+        log.debug("Bulk request of {} alerts completed in {} ms", alerts.size(), response.took());
+        return rejected;
     }
 
     @Override
     public List<Alert> searchAlerts(String queryString, int from, int size) {
         try {
             SearchResponse<Alert> response = esClient.search(s -> s
-                    .index(alertsIndex)
+                    .index(indicesFor(null, null))
+                    .allowNoIndices(true)
                     .from(from)
                     .size(size)
                     .query(q -> q
@@ -116,7 +165,9 @@ public class ElasticsearchServiceImpl implements ElasticsearchService {
     public List<Alert> getAlertsByTimeRange(LocalDateTime start, LocalDateTime end, int size) {
         try {
             SearchResponse<Alert> response = esClient.search(s -> s
-                    .index(alertsIndex)
+                    .index(indicesFor(start.toLocalDate(), end.toLocalDate()))
+                    .ignoreUnavailable(true)
+                    .allowNoIndices(true)
                     .size(size)
                     .query(q -> q
                             .range(r -> r
@@ -140,10 +191,14 @@ public class ElasticsearchServiceImpl implements ElasticsearchService {
     }
 
     @Override
+    @Cacheable(cacheNames = IngestWatermark.AGGREGATIONS_CACHE,
+            key = "{#field, #since, #topN, @ingestWatermark.current()}", sync = true)
     public Map<String, Long> aggregateByField(String field, LocalDateTime since, int topN) {
         try {
             SearchResponse<Void> response = esClient.search(s -> s
-                    .index(alertsIndex)
+                    .index(indicesFor(since.toLocalDate(), LocalDate.now(ZoneOffset.UTC)))
+                    .ignoreUnavailable(true)
+                    .allowNoIndices(true)
                     .size(0)
                     .query(q -> q
                             .range(r -> r
@@ -182,24 +237,83 @@ public class ElasticsearchServiceImpl implements ElasticsearchService {
     @Override
     public void createIndexIfNotExists() {
         try {
-            boolean exists = esClient.indices().exists(ExistsRequest.of(e -> e.index(alertsIndex))).value();
-
-            if (!exists) {
-                CreateIndexResponse response = esClient.indices().create(c -> c
-                        .index(alertsIndex)
-                        .mappings(m -> m
+            legacyIndex = esClient.indices().exists(ExistsRequest.of(e -> e.index(alertsIndex))).value()
+                    && !esClient.indices().existsAlias(a -> a.name(alertsIndex)).value();
+            if (legacyIndex) {
+                log.warn("Elasticsearch index {} predates daily indices: it is still searched but not written,"
+                        + " and the {} alias is not created until it is removed", alertsIndex, alertsIndex);
+            }
+            esClient.indices().putIndexTemplate(t -> t
+                    .name(alertsIndex)
+                    .indexPatterns(alertsIndex + "-*")
+                    .template(tt -> {
+                        tt.mappings(m -> m
                                 .properties("timestamp", p -> p.date(d -> d))
                                 .properties("sourceIp", p -> p.keyword(k -> k))
                                 .properties("destIp", p -> p.keyword(k -> k))
                                 .properties("severity", p -> p.keyword(k -> k))
                                 .properties("category", p -> p.keyword(k -> k))
-                                .properties("signature", p -> p.text(t -> t.fields("keyword", f -> f.keyword(k -> k))))
-                                .properties("protocol", p -> p.keyword(k -> k))));
+                                .properties("signature", p -> p.text(tx -> tx.fields("keyword", f -> f.keyword(k -> k))))
+                                .properties("protocol", p -> p.keyword(k -> k)));
+                        return legacyIndex ? tt : tt.aliases(alertsIndex, a -> a);
+                    }));
+            log.info("Installed Elasticsearch index template for {}-*", alertsIndex);
+        } catch (Exception e) {
+            log.error("Error installing Elasticsearch index template", e);
+        }
+    }
 
-                log.info("Created Elasticsearch index: {}", alertsIndex);
+    @Override
+    public int deleteIndicesBefore(LocalDate day) {
+        try {
+            List<String> expired = new ArrayList<>();
+            for (String index : esClient.indices().get(g -> g.index(alertsIndex + "-*")).result().keySet()) {
+                LocalDate indexDay = parseIndexDay(index);
+                if (indexDay != null && indexDay.isBefore(day)) {
+                    expired.add(index);
+                }
+            }
+            if (!expired.isEmpty()) {
+                esClient.indices().delete(d -> d.index(expired));
+                log.info("Deleted {} Elasticsearch indices older than {}", expired.size(), day);
             }
+            return expired.size();
         } catch (Exception e) {
-            log.error("Error creating Elasticsearch index", e);
+            log.error("Error deleting Elasticsearch indices older than {}", day, e);
+            return 0;
+        }
+    }
+
+    private String indexFor(Alert alert) {
+        LocalDateTime timestamp = alert.getTimestamp() != null ? alert.getTimestamp() : LocalDateTime.now(ZoneOffset.UTC);
+        return alertsIndex + "-" + INDEX_DAY.format(timestamp);
+    }
+
+    /**
+     * Indices holding alerts of the given UTC days, or every alert index when unbounded
+     */
+    private List<String> indicesFor(LocalDate first, LocalDate last) {
+        List<String> indices = new ArrayList<>();
+        if (legacyIndex) {
+            indices.add(alertsIndex);
+        }
+        if (first == null || last == null || ChronoUnit.DAYS.between(first, last) >= MAX_TARGET_DAYS) {
+            indices.add(legacyIndex ? alertsIndex + "-*" : alertsIndex);
+            return indices;
+        }
+        // Never an empty list, which Elasticsearch would take as every index
+        LocalDate end = last.isBefore(first) ? first : last;
+        for (LocalDate day = first; !day.isAfter(end); day = day.plusDays(1)) {
+            indices.add(alertsIndex + "-" + INDEX_DAY.format(day));
+        }
+        return indices;
+    }
+
+    private LocalDate parseIndexDay(String index) {
+        try {
+            return LocalDate.parse(index.substring(alertsIndex.length() + 1), INDEX_DAY);
+        } catch (DateTimeParseException | IndexOutOfBoundsException e) {
+            return null;
         }
     }
 }
@@ -0,0 +1,409 @@
+package tn.rnu.eniso.fwk.scan.core.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import tn.rnu.eniso.fwk.scan.core.infra.model.Alert;
+import tn.rnu.eniso.fwk.scan.core.service.api.SuricataService;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Imports archived EVE files outside the live tailer. Plain files are split into
+ * line-aligned byte ranges that are read and parsed in parallel; gzip archives are
+ * decompressed by a single reader that hands line chunks to the same worker pool.
+ * Each worker persists its alerts in batches through {@link SuricataService#saveArchivedAlerts};
+ * alerts without an EVE {@code host} are attributed to {@code suricata.backfill.sensor}.
+ * In {@code aggregate} mode all workers share one {@link AlertAggregator}.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class EveBackfillService {
+
+    private static final int READ_BUFFER_SIZE = 1 << 20;
+    private static final int GZIP_CHUNK_LINES = 10_000;
+
+    private final EveLogParser eveLogParser;
+    private final SuricataService suricataService;
+    private final SuricataMetrics metrics;
+
+    @Value("${suricata.backfill.parallelism:0}")
+    private int parallelism;
+
+    @Value("${suricata.backfill.chunk-size:33554432}")
+    private long chunkSize;
+
+    @Value("${suricata.backfill.progress-interval:5000}")
+    private long progressInterval;
+
+    @Value("${suricata.backfill.sensor:}")
+    private String sensor;
+
+    @Value("${suricata.log.batch.size:500}")
+    private int batchSize;
+
+    @Value("${suricata.alert.mode:raw}")
+    private String alertMode;
+
+    @Value("${suricata.alert.aggregation.window:60000}")
+    private long aggregationWindow;
+
+    /**
+     * Files matched by a path, which may be a single file, a directory or a glob.
+     * Directories contribute their {@code *.json*} files. Oldest files come first.
+     */
+    public List<Path> resolveFiles(String location) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (location.contains("*") || location.contains("?")) {
+            Path dir = Paths.get(location).toAbsolutePath().getParent();
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + Paths.get(location).toAbsolutePath());
+            try (Stream<Path> stream = Files.list(dir)) {
+                stream.filter(Files::isRegularFile).filter(matcher::matches).forEach(files::add);
+            }
+        } else {
+            Path path = Paths.get(location);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> stream = Files.list(path)) {
+                    stream.filter(Files::isRegularFile)
+                            .filter(p -> p.getFileName().toString().contains(".json"))
+                            .forEach(files::add);
+                }
+            } else if (Files.isRegularFile(path)) {
+                files.add(path);
+            }
+        }
+        files.sort(Comparator.comparingLong(EveBackfillService::lastModified));
+        return files;
+    }
+
+    public BackfillReport backfill(List<Path> files) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        long totalBytes = files.stream().mapToLong(EveBackfillService::sizeOf).sum();
+        Progress progress = new Progress("aggregate".equalsIgnoreCase(alertMode)
+                ? new AlertAggregator(aggregationWindow) : null);
+        long started = System.nanoTime();
+
+        log.info("Starting backfill of {} files ({} MB) with {} workers",
+                files.size(), totalBytes >> 20, threads);
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        reporter.scheduleAtFixedRate(() -> logProgress(progress, totalBytes, started),
+                progressInterval, progressInterval, TimeUnit.MILLISECONDS);
+
+        // Bounds the number of decompressed chunks waiting for a worker
+        Semaphore inFlight = new Semaphore(threads * 2);
+        List<Future<?>> tasks = new ArrayList<>();
+        try {
+            for (Path file : files) {
+                try {
+                    if (file.getFileName().toString().endsWith(".gz")) {
+                        submitCompressed(file, workers, inFlight, progress, tasks);
+                    } else {
+                        submitChunks(file, threads, workers, progress, tasks);
+                    }
+                    progress.files.incrementAndGet();
+                } catch (IOException e) {
+                    log.error("Error reading backfill file {}", file, e);
+                    progress.errors.incrementAndGet();
+                }
+            }
+            for (Future<?> task : tasks) {
+                try {
+                    task.get();
+                } catch (ExecutionException e) {
+                    log.error("Backfill task failed", e.getCause());
+                    progress.errors.incrementAndGet();
+                }
+            }
+            if (progress.aggregator != null) {
+                save(progress.aggregator.drain(), progress);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Backfill interrupted");
+        } finally {
+            reporter.shutdownNow();
+            workers.shutdownNow();
+        }
+
+        BackfillReport report = new BackfillReport(progress.files.get(), progress.bytes.get(),
+                progress.lines.get(), progress.alerts.get(), progress.rejectedLines.get(),
+                progress.droppedAlerts.get(), progress.errors.get(), Duration.ofNanos(System.nanoTime() - started));
+        log.info("Backfill finished: {} files, {} lines, {} alerts, {} rejected lines, {} dropped alerts,"
+                        + " {} read errors in {} s ({} lines/s)",
+                report.files(), report.lines(), report.alerts(), report.rejectedLines(), report.droppedAlerts(),
+                report.errors(), report.elapsed().toSeconds(), report.linesPerSecond());
+        return report;
+    }
+
+    /**
+     * Split a plain file at line boundaries and queue one reader task per range
+     */
+    private void submitChunks(Path file, int threads, ExecutorService workers, Progress progress,
+                              List<Future<?>> tasks) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long chunks = Math.max(threads, (size + chunkSize - 1) / chunkSize);
+            long step = Math.max(1, size / chunks);
+
+            long start = 0;
+            while (start < size) {
+                long end = start + step >= size ? size : nextLineStart(channel, start + step);
+                long from = start;
+                tasks.add(workers.submit(() -> readRange(file, from, end, progress)));
+                start = end;
+            }
+        }
+    }
+
+    private void readRange(Path file, long start, long end, Progress progress) {
+        Batch batch = new Batch(progress);
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(READ_BUFFER_SIZE, Math.max(end - start, 1)));
+        long position = start;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (position < end) {
+                if (!buffer.hasRemaining()) {
+                    // A single line larger than the buffer
+                    ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                    buffer.flip();
+                    larger.put(buffer);
+                    buffer = larger;
+                }
+                int limit = (int) Math.min(buffer.remaining(), end - position);
+                ByteBuffer window = buffer.slice(buffer.position(), limit);
+                int read = channel.read(window, position);
+                if (read <= 0) {
+                    break;
+                }
+                position += read;
+                progress.bytes.addAndGet(read);
+                buffer.position(buffer.position() + read);
+
+                byte[] array = buffer.array();
+                int filled = buffer.position();
+                int lineStart = 0;
+                for (int i = 0; i < filled; i++) {
+                    if (array[i] == '\n') {
+                        batch.add(decode(array, lineStart, i));
+                        lineStart = i + 1;
+                    }
+                }
+                System.arraycopy(array, lineStart, array, 0, filled - lineStart);
+                buffer.position(filled - lineStart);
+            }
+            // The last line of a file may lack its trailing newline
+            if (buffer.position() > 0) {
+                batch.add(decode(buffer.array(), 0, buffer.position()));
+            }
+        } catch (IOException e) {
+            log.error("Error reading {} between offsets {} and {}", file, start, end, e);
+            progress.errors.incrementAndGet();
+        }
+        batch.flush();
+    }
+
+    /**
+     * Decompress an archive on the calling thread and queue its lines in fixed-size chunks
+     */
+    private void submitCompressed(Path file, ExecutorService workers, Semaphore inFlight, Progress progress,
+                                  List<Future<?>> tasks) throws IOException, InterruptedException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file), READ_BUFFER_SIZE);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8),
+                     READ_BUFFER_SIZE)) {
+            List<String> chunk = new ArrayList<>(GZIP_CHUNK_LINES);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                chunk.add(line);
+                if (chunk.size() >= GZIP_CHUNK_LINES) {
+                    tasks.add(submitLines(chunk, workers, inFlight, progress));
+                    chunk = new ArrayList<>(GZIP_CHUNK_LINES);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                tasks.add(submitLines(chunk, workers, inFlight, progress));
+            }
+        }
+        progress.bytes.addAndGet(sizeOf(file));
+    }
+
+    private Future<?> submitLines(List<String> lines, ExecutorService workers, Semaphore inFlight,
+                                  Progress progress) throws InterruptedException {
+        inFlight.acquire();
+        return workers.submit(() -> {
+            try {
+                Batch batch = new Batch(progress);
+                lines.forEach(batch::add);
+                batch.flush();
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    private void save(List<Alert> alerts, Progress progress) {
+        if (alerts.isEmpty()) {
+            return;
+        }
+        try {
+            suricataService.saveArchivedAlerts(alerts);
+            progress.alerts.addAndGet(alerts.size());
+        } catch (Exception e) {
+            log.error("Error saving batch of {} backfilled alerts", alerts.size(), e);
+            metrics.dropped(alerts, "db_error");
+            progress.droppedAlerts.addAndGet(alerts.size());
+        }
+    }
+
+    private static long nextLineStart(FileChannel channel, long from) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long position = from;
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+    }
+
+    private static String decode(byte[] array, int start, int end) {
+        if (end > start && array[end - 1] == '\r') {
+            end--;
+        }
+        return new String(array, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    private static void logProgress(Progress progress, long totalBytes, long started) {
+        double seconds = Math.max((System.nanoTime() - started) / 1e9, 0.001);
+        log.info("Backfill progress: {}/{} MB, {} lines, {} alerts, {} rejected lines, {} dropped alerts,"
+                        + " {} read errors ({} lines/s, {} MB/s)",
+                progress.bytes.get() >> 20, totalBytes >> 20, progress.lines.get(), progress.alerts.get(),
+                progress.rejectedLines.get(), progress.droppedAlerts.get(), progress.errors.get(),
+                Math.round(progress.lines.get() / seconds),
+                Math.round((progress.bytes.get() >> 20) / seconds));
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Parsed alerts of one worker, persisted every {@code batchSize} alerts
+     */
+    private final class Batch {
+
+        private final Progress progress;
+        private final List<Alert> alerts = new ArrayList<>(batchSize);
+
+        Batch(Progress progress) {
+            this.progress = progress;
+        }
+
+        void add(String line) {
+            if (line.isBlank()) {
+                return;
+            }
+            progress.lines.incrementAndGet();
+            try {
+                Alert alert = eveLogParser.parse(line);
+                if (alert != null) {
+                    if (alert.getSensor() == null && !sensor.isEmpty()) {
+                        alert.setSensor(sensor);
+                    }
+                    alerts.add(alert);
+                    if (alerts.size() >= batchSize) {
+                        flush();
+                    }
+                }
+            } catch (Exception e) {
+                log.debug("Skipping unparseable EVE line: {}", line, e);
+                progress.rejectedLines.incrementAndGet();
+            }
+        }
+
+        void flush() {
+            List<Alert> closed;
+            if (progress.aggregator != null) {
+                closed = progress.aggregator.add(alerts);
+                closed.addAll(progress.aggregator.expired());
+            } else {
+                closed = new ArrayList<>(alerts);
+            }
+            alerts.clear();
+            save(closed, progress);
+        }
+    }
+
+    private static final class Progress {
+        final AlertAggregator aggregator;
+        final AtomicLong files = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+        final AtomicLong lines = new AtomicLong();
+        final AtomicLong alerts = new AtomicLong();
+        // Lines that could not be parsed, alerts that could not be saved, and files or chunks that could not be read
+        final AtomicLong rejectedLines = new AtomicLong();
+        final AtomicLong droppedAlerts = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+
+        Progress(AlertAggregator aggregator) {
+            this.aggregator = aggregator;
+        }
+    }
+
+    public record BackfillReport(long files, long bytes, long lines, long alerts, long rejectedLines,
+                                 long droppedAlerts, long errors, Duration elapsed) {
+
+        public long linesPerSecond() {
+            long millis = Math.max(elapsed.toMillis(), 1);
+            return lines * 1000 / millis;
+        }
+    }
+}
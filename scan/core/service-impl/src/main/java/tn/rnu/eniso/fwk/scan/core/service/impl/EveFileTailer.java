@@ -0,0 +1,392 @@
+package tn.rnu.eniso.fwk.scan.core.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Follows one EVE file through a {@link FileChannel}, reading large blocks and splitting
+ * lines in place. The offset of the last persisted line is checkpointed with the file
+ * identity and size, so a restart resumes where ingest stopped. Rotations by rename or
+ * copytruncate are drained from the rotated file before switching to the new one. A
+ * checkpoint without file identity is resumed by size only.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class EveFileTailer implements Runnable, SuricataIngestPipeline.Source {
+
+    private static final long CHECKPOINT_MAX_AGE_MILLIS = 10_000;
+
+    private final Path path;
+    private final String sensor;
+    private final Path checkpointPath;
+    private final SuricataIngestPipeline pipeline;
+    private final int bufferSize;
+    private final long pollDelay;
+    private final int checkpointInterval;
+    private final boolean startFromEnd;
+
+    private volatile boolean running = true;
+
+    // Written by the tailer thread only, read by the metrics registry
+    private volatile long position;
+    private volatile long linesRead;
+
+    // Reader state, owned by the tailer thread. The buffer holds the bytes between
+    // consumedOffset (end of the last emitted line) and readOffset.
+    private FileChannel channel;
+    private String fileKey;
+    private long consumedOffset;
+    private long readOffset;
+    private ByteBuffer buffer;
+
+    // Checkpoint state, updated from the ingest writer thread
+    private Checkpoint committed;
+    private int uncheckpointedLines;
+    private long lastCheckpointMillis;
+
+    @Override
+    public void run() {
+        buffer = ByteBuffer.allocate(bufferSize);
+        try {
+            resume();
+        } catch (IOException e) {
+            log.error("Error resuming Suricata log file {} from checkpoint", path, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        while (running) {
+            try {
+                if (channel == null) {
+                    if (Files.exists(path)) {
+                        open(path, 0);
+                    } else {
+                        Thread.sleep(pollDelay);
+                    }
+                } else if (readBlock() == 0) {
+                    checkRotation();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (IOException e) {
+                log.error("Error reading Suricata log file {}", path, e);
+                closeChannel();
+                sleepQuietly();
+            }
+        }
+
+        closeChannel();
+        saveCheckpoint();
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    public long getLinesRead() {
+        return linesRead;
+    }
+
+    /**
+     * Bytes of the followed file not yet read into lines
+     */
+    public long getLag() {
+        long size = sizeOf(path);
+        return size >= 0 ? Math.max(size - position, 0) : 0;
+    }
+
+    @Override
+    public synchronized void committed(String fileKey, long endOffset, int lineCount) {
+        // The size only tells truncation apart while it is the size of the checkpointed file
+        long size = fileKey.equals(fileKeyQuietly(path)) ? Math.max(sizeOf(path), endOffset) : endOffset;
+        committed = new Checkpoint(fileKey, endOffset, size);
+        uncheckpointedLines += lineCount;
+        if (!running
+                || uncheckpointedLines >= checkpointInterval
+                || System.currentTimeMillis() - lastCheckpointMillis >= CHECKPOINT_MAX_AGE_MILLIS) {
+            saveCheckpoint();
+        }
+    }
+
+    private void resume() throws IOException, InterruptedException {
+        Checkpoint checkpoint = loadCheckpoint();
+
+        if (checkpoint == null) {
+            if (Files.exists(path)) {
+                open(path, startFromEnd ? Files.size(path) : 0);
+            }
+            return;
+        }
+
+        if (Files.exists(path) && (checkpoint.fileKey() == null || Objects.equals(checkpoint.fileKey(), fileKey(path)))) {
+            if (Files.size(path) >= Math.max(checkpoint.offset(), checkpoint.size())) {
+                log.info("Resuming Suricata log file {} at offset {}", path, checkpoint.offset());
+                open(path, checkpoint.offset());
+                return;
+            }
+            // Same file but shorter than when checkpointed: truncated while we were down,
+            // possibly written again past our offset since
+            drainRotatedCopy(checkpoint.offset());
+        } else if (checkpoint.fileKey() == null) {
+            log.warn("Suricata log file {} missing, starting it from the beginning when it appears", path);
+        } else {
+            // The checkpointed file was renamed away while we were down
+            Optional<Path> rotated = findSibling(p -> checkpoint.fileKey().equals(fileKeyQuietly(p)));
+            if (rotated.isPresent()) {
+                drain(rotated.get(), checkpoint.offset());
+            } else {
+                log.warn("Rotated Suricata log file for checkpoint {} not found, starting {} from the beginning",
+                        checkpoint, path);
+            }
+        }
+
+        if (Files.exists(path)) {
+            open(path, 0);
+        }
+    }
+
+    private void checkRotation() throws IOException, InterruptedException {
+        if (!Files.exists(path)) {
+            // Renamed and not recreated yet, keep reading the old handle
+            Thread.sleep(pollDelay);
+            return;
+        }
+
+        if (!fileKey.equals(fileKey(path))) {
+            // Rotated by rename: our channel still points at the old file, finish it first
+            log.info("Suricata log file {} rotated, draining previous file", path);
+            drainOpenChannel();
+            open(path, 0);
+            return;
+        }
+
+        if (Files.size(path) < readOffset) {
+            // Rotated by copytruncate: the unread tail now lives in the copy
+            log.info("Suricata log file {} truncated, draining rotated copy", path);
+            long from = consumedOffset;
+            closeChannel();
+            drainRotatedCopy(from);
+            open(path, 0);
+            return;
+        }
+
+        Thread.sleep(pollDelay);
+    }
+
+    private void drainRotatedCopy(long fromOffset) throws IOException, InterruptedException {
+        Optional<Path> copy = findSibling(p -> sizeOf(p) >= fromOffset);
+        if (copy.isPresent()) {
+            drain(copy.get(), fromOffset);
+        } else {
+            log.warn("No rotated copy of {} found, lines after offset {} may be lost", path, fromOffset);
+        }
+    }
+
+    private void drain(Path file, long fromOffset) throws IOException, InterruptedException {
+        log.info("Draining rotated Suricata log file {} from offset {}", file, fromOffset);
+        open(file, fromOffset);
+        drainOpenChannel();
+    }
+
+    private void drainOpenChannel() throws IOException, InterruptedException {
+        while (readBlock() > 0) {
+            // read until the end of the rotated file
+        }
+        // The last record of a rotated file may lack its trailing newline
+        if (buffer.position() > 0) {
+            submit(buffer.array(), 0, buffer.position(), readOffset);
+            consumedOffset = readOffset;
+            buffer.clear();
+        }
+        closeChannel();
+    }
+
+    private void open(Path file, long offset) throws IOException {
+        closeChannel();
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        fileKey = fileKey(file);
+        consumedOffset = offset;
+        readOffset = offset;
+        position = offset;
+        buffer.clear();
+    }
+
+    private int readBlock() throws IOException, InterruptedException {
+        if (!buffer.hasRemaining()) {
+            // A single line larger than the buffer
+            ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+
+        int read = channel.read(buffer, readOffset);
+        if (read <= 0) {
+            return 0;
+        }
+        readOffset += read;
+        emitLines();
+        return read;
+    }
+
+    private void emitLines() throws InterruptedException {
+        byte[] array = buffer.array();
+        int limit = buffer.position();
+        int start = 0;
+
+        for (int i = 0; i < limit; i++) {
+            if (array[i] == '\n') {
+                submit(array, start, i, consumedOffset + i + 1);
+                start = i + 1;
+            }
+        }
+
+        consumedOffset += start;
+        position = consumedOffset;
+        System.arraycopy(array, start, array, 0, limit - start);
+        buffer.position(limit - start);
+    }
+
+    private void submit(byte[] array, int start, int end, long endOffset) throws InterruptedException {
+        if (end > start && array[end - 1] == '\r') {
+            end--;
+        }
+        String line = new String(array, start, end - start, StandardCharsets.UTF_8);
+        linesRead++;
+        if (!line.isBlank()) {
+            pipeline.submit(line, sensor, this, fileKey, endOffset);
+        }
+    }
+
+    private Optional<Path> findSibling(Predicate<Path> filter) throws IOException {
+        Path dir = path.toAbsolutePath().getParent();
+        String name = path.getFileName().toString();
+        try (Stream<Path> files = Files.list(dir)) {
+            return files
+                    .filter(p -> !p.getFileName().toString().equals(name))
+                    .filter(p -> p.getFileName().toString().startsWith(name))
+                    .filter(Files::isRegularFile)
+                    .filter(filter)
+                    .max(Comparator.comparingLong(EveFileTailer::lastModified));
+        }
+    }
+
+    private synchronized void saveCheckpoint() {
+        if (committed == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(checkpointPath.toAbsolutePath().getParent());
+            Properties properties = new Properties();
+            properties.setProperty("file", path.toString());
+            if (committed.fileKey() != null) {
+                properties.setProperty("fileKey", committed.fileKey());
+            }
+            properties.setProperty("offset", Long.toString(committed.offset()));
+            properties.setProperty("size", Long.toString(committed.size()));
+
+            Path tmp = checkpointPath.resolveSibling(checkpointPath.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                properties.store(out, "Suricata log checkpoint");
+            }
+            Files.move(tmp, checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            uncheckpointedLines = 0;
+            lastCheckpointMillis = System.currentTimeMillis();
+        } catch (IOException e) {
+            log.error("Error saving checkpoint {}", checkpointPath, e);
+        }
+    }
+
+    private Checkpoint loadCheckpoint() {
+        if (!Files.exists(checkpointPath)) {
+            return null;
+        }
+        try (InputStream in = Files.newInputStream(checkpointPath)) {
+            Properties properties = new Properties();
+            properties.load(in);
+            Checkpoint checkpoint = new Checkpoint(
+                    properties.getProperty("fileKey"),
+                    Long.parseLong(properties.getProperty("offset")),
+                    Long.parseLong(properties.getProperty("size", "-1")));
+            committed = checkpoint;
+            return checkpoint;
+        } catch (Exception e) {
+            log.error("Error loading checkpoint {}, ignoring it", checkpointPath, e);
+            return null;
+        }
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Error closing {}", path, e);
+            }
+            channel = null;
+        }
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(pollDelay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    static String fileKey(Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        Object key = attributes.fileKey();
+        return key != null ? key.toString() : attributes.creationTime().toString();
+    }
+
+    private static String fileKeyQuietly(Path file) {
+        try {
+            return fileKey(file);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private record Checkpoint(String fileKey, long offset, long size) {
+    }
+}
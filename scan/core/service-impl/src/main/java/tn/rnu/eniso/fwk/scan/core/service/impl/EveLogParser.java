@@ -0,0 +1,186 @@
+package tn.rnu.eniso.fwk.scan.core.service.impl;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tn.rnu.eniso.fwk.scan.core.infra.model.Alert;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertSeverity;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Set;
+
+/**
+ * Streaming decoder for Suricata EVE JSON lines. Fields are read token by token and
+ * parsing stops as soon as {@code event_type} names a type that is not kept, so
+ * flow, dns, tls and similar records are never fully materialized.
+ */
+@Component
+@RequiredArgsConstructor
+public class EveLogParser {
+
+    // Suricata writes offsets without a colon, e.g. 2024-01-01T10:00:00.123456+0000
+    private static final DateTimeFormatter EVE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSSZ");
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    private final SuricataMetrics metrics;
+    private final AlertSignatureDictionary signatureDictionary;
+
+    @Value("${suricata.eve.event-types:alert}")
+    private Set<String> eventTypes;
+
+    /**
+     * Decode an EVE line into an alert, or return null if its event type is not kept
+     */
+    public Alert parse(String jsonLog) throws IOException {
+        long start = System.nanoTime();
+        String eventType = null;
+        boolean kept = false;
+
+        try (JsonParser parser = jsonFactory.createParser(jsonLog)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+
+            Alert alert = newAlert();
+            String timestamp = "";
+            int severityLevel = 2;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+
+                switch (field) {
+                    case "event_type" -> {
+                        eventType = parser.getText();
+                        if (!eventTypes.contains(eventType)) {
+                            return null;
+                        }
+                        kept = true;
+                    }
+                    case "timestamp" -> timestamp = text(parser);
+                    case "src_ip" -> alert.setSourceIp(text(parser));
+                    case "dest_ip" -> alert.setDestIp(text(parser));
+                    case "src_port" -> alert.setSourcePort(parser.getValueAsInt(0));
+                    case "dest_port" -> alert.setDestPort(parser.getValueAsInt(0));
+                    case "proto" -> alert.setProtocol(text(parser));
+                    case "payload" -> alert.setPayload(text(parser));
+                    case "host" -> alert.setSensor(text(parser, Alert.SENSOR_LENGTH));
+                    case "alert" -> severityLevel = parseAlertObject(parser, alert);
+                    default -> parser.skipChildren();
+                }
+            }
+
+            if (!kept) {
+                return null;
+            }
+
+            alert.setTimestamp(parseTimestamp(timestamp));
+            alert.setCount(1L);
+            alert.setFirstSeen(alert.getTimestamp());
+            alert.setLastSeen(alert.getTimestamp());
+            alert.setSeverity(mapSeverity(severityLevel));
+            signatureDictionary.assign(alert);
+            return alert;
+        } catch (IOException e) {
+            metrics.rejected(eventType);
+            kept = false;
+            throw e;
+        } finally {
+            metrics.parsed(eventType, kept, System.nanoTime() - start);
+        }
+    }
+
+    private int parseAlertObject(JsonParser parser, Alert alert) throws IOException {
+        int severityLevel = 2;
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return severityLevel;
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+
+            switch (field) {
+                case "signature" -> alert.setSignature(text(parser));
+                case "category" -> alert.setCategory(text(parser));
+                case "signature_id" -> alert.setSignatureId(parser.getValueAsLong(0));
+                case "gid" -> alert.setGeneratorId(parser.getValueAsLong(0));
+                case "action" -> alert.setAction(text(parser));
+                case "severity" -> severityLevel = parser.getValueAsInt(2);
+                default -> parser.skipChildren();
+            }
+        }
+        return severityLevel;
+    }
+
+    private Alert newAlert() {
+        // Same defaults the tree-based parser produced for missing fields
+        Alert alert = new Alert();
+        alert.setSourceIp("");
+        alert.setDestIp("");
+        alert.setSourcePort(0);
+        alert.setDestPort(0);
+        alert.setProtocol("");
+        alert.setSignature("");
+        alert.setCategory("");
+        alert.setSignatureId(0L);
+        alert.setGeneratorId(0L);
+        alert.setAction("");
+        return alert;
+    }
+
+    private String text(JsonParser parser) throws IOException {
+        if (parser.currentToken().isScalarValue()) {
+            return parser.getText();
+        }
+        parser.skipChildren();
+        return "";
+    }
+
+    private String text(JsonParser parser, int maxLength) throws IOException {
+        String text = text(parser);
+        return text.length() > maxLength ? text.substring(0, maxLength) : text;
+    }
+
+    /**
+     * Sensors write their local time with its offset; alerts keep UTC, so that day
+     * boundaries do not depend on where the sensor runs
+     */
+    private LocalDateTime parseTimestamp(String timestamp) {
+        if (timestamp.isEmpty()) {
+            return LocalDateTime.now(ZoneOffset.UTC);
+        }
+        try {
+            return toUtc(ZonedDateTime.parse(timestamp, EVE_TIMESTAMP));
+        } catch (Exception e) {
+            try {
+                return toUtc(ZonedDateTime.parse(timestamp, DateTimeFormatter.ISO_DATE_TIME));
+            } catch (Exception ignored) {
+                return LocalDateTime.now(ZoneOffset.UTC);
+            }
+        }
+    }
+
+    private static LocalDateTime toUtc(ZonedDateTime timestamp) {
+        return timestamp.withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+    }
+
+    private AlertSeverity mapSeverity(int suricataSeverity) {
+        // Suricata severity: 1 = high, 2 = medium, 3 = low
+        return switch (suricataSeverity) {
+            case 1 -> AlertSeverity.HIGH;
+            case 2 -> AlertSeverity.MEDIUM;
+            case 3 -> AlertSeverity.LOW;
+            default -> AlertSeverity.MEDIUM;
+        };
+    }
+}
@@ -0,0 +1,182 @@
+package tn.rnu.eniso.fwk.scan.core.service.impl;
+
+import java.util.Arrays;
+
+/**
+ * HyperLogLog distinct counter with {@code 2^precision} registers and a relative standard
+ * error of {@code 1.04 / sqrt(2^precision)}. Small sketches keep their non-zero registers
+ * in a sorted sparse list and switch to a dense register array once that would be larger,
+ * so the many per-signature sketches that only ever see a handful of addresses stay cheap.
+ */
+final class HyperLogLog {
+
+    private static final int[] NO_ENTRIES = new int[0];
+
+    private final int precision;
+    private final int registerCount;
+    private byte[] registers;
+    // Sparse entries encoded as index << 8 | rank, sorted by index
+    private int[] sparse = NO_ENTRIES;
+    private int sparseSize;
+
+    HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("HyperLogLog precision must be between 4 and 18: " + precision);
+        }
+        this.precision = precision;
+        this.registerCount = 1 << precision;
+    }
+
+    void add(String value) {
+        if (value == null) {
+            return;
+        }
+        long hash = hash(value);
+        int index = (int) (hash >>> (64 - precision));
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        update(index, rank);
+    }
+
+    /**
+     * Fold another sketch of the same precision into this one
+     */
+    void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge HyperLogLog of precision " + other.precision
+                    + " into " + precision);
+        }
+        if (other.registers == null) {
+            for (int i = 0; i < other.sparseSize; i++) {
+                update(other.sparse[i] >>> 8, other.sparse[i] & 0xFF);
+            }
+            return;
+        }
+        densify();
+        for (int i = 0; i < registerCount; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    long estimate() {
+        int zeros;
+        double sum;
+        if (registers == null) {
+            zeros = registerCount - sparseSize;
+            sum = zeros;
+            for (int i = 0; i < sparseSize; i++) {
+                sum += Math.scalb(1.0, -(sparse[i] & 0xFF));
+            }
+        } else {
+            zeros = 0;
+            sum = 0;
+            for (byte register : registers) {
+                if (register == 0) {
+                    zeros++;
+                }
+                sum += Math.scalb(1.0, -register);
+            }
+        }
+        double estimate = alpha() * registerCount * registerCount / sum;
+        // Linear counting is more accurate while many registers are still empty
+        if (estimate <= 2.5 * registerCount && zeros > 0) {
+            estimate = registerCount * Math.log((double) registerCount / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    boolean isSparse() {
+        return registers == null;
+    }
+
+    static double relativeError(int precision) {
+        return 1.04 / Math.sqrt(1 << precision);
+    }
+
+    private void update(int index, int rank) {
+        if (registers != null) {
+            if (rank > registers[index]) {
+                registers[index] = (byte) rank;
+            }
+            return;
+        }
+
+        int position = search(index);
+        if (position >= 0) {
+            if (rank > (sparse[position] & 0xFF)) {
+                sparse[position] = index << 8 | rank;
+            }
+            return;
+        }
+        // Four bytes per sparse entry against one per register
+        if (sparseSize >= registerCount / 4) {
+            densify();
+            registers[index] = (byte) rank;
+            return;
+        }
+        int insert = -position - 1;
+        if (sparseSize == sparse.length) {
+            sparse = Arrays.copyOf(sparse, Math.max(4, sparseSize * 2));
+        }
+        System.arraycopy(sparse, insert, sparse, insert + 1, sparseSize - insert);
+        sparse[insert] = index << 8 | rank;
+        sparseSize++;
+    }
+
+    private int search(int index) {
+        int low = 0;
+        int high = sparseSize - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midIndex = sparse[mid] >>> 8;
+            if (midIndex < index) {
+                low = mid + 1;
+            } else if (midIndex > index) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private void densify() {
+        if (registers != null) {
+            return;
+        }
+        registers = new byte[registerCount];
+        for (int i = 0; i < sparseSize; i++) {
+            registers[sparse[i] >>> 8] = (byte) (sparse[i] & 0xFF);
+        }
+        sparse = NO_ENTRIES;
+        sparseSize = 0;
+    }
+
+    private double alpha() {
+        return switch (registerCount) {
+            case 16 -> 0.673;
+            case 32 -> 0.697;
+            case 64 -> 0.709;
+            default -> 0.7213 / (1 + 1.079 / registerCount);
+        };
+    }
+
+    /**
+     * 64-bit FNV-1a over the characters, finished with the MurmurHash3 mixer so that the
+     * high bits used for the register index are well distributed
+     */
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,36 @@
+package tn.rnu.eniso.fwk.scan.core.service.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of the alert data, part of the statistics and aggregation cache keys so that
+ * entries computed before new alerts were committed are no longer hit and simply age out. The watermark
+ * moves at most once per {@code suricata.cache.watermark.resolution} so that steady
+ * ingest does not defeat the caches; cached results are at most that much behind.
+ */
+@Component
+public class IngestWatermark {
+
+    public static final String STATISTICS_CACHE = "alertStatistics";
+    public static final String AGGREGATIONS_CACHE = "alertAggregations";
+
+    @Value("${suricata.cache.watermark.resolution:1000}")
+    private long resolutionMillis;
+
+    private final AtomicLong watermark = new AtomicLong();
+
+    /**
+     * Called once new alerts are committed
+     */
+    public void advance() {
+        long tick = System.currentTimeMillis() / resolutionMillis;
+        watermark.accumulateAndGet(tick, Math::max);
+    }
+
+    public long current() {
+        return watermark.get();
+    }
+}
@@ -0,0 +1,69 @@
+package tn.rnu.eniso.fwk.scan.core.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.rnu.eniso.fwk.scan.core.dal.repository.AlertRepository;
+import tn.rnu.eniso.fwk.scan.core.dal.repository.DeviceRepository;
+import tn.rnu.eniso.fwk.scan.core.infra.model.Alert;
+import tn.rnu.eniso.fwk.scan.core.infra.model.Device;
+
+import java.util.List;
+
+/**
+ * Fills the binary address columns of alerts and devices stored before they existed, in
+ * batches ordered by id. Rows whose addresses are not IP literals keep null columns and
+ * are skipped, so each run only reads rows it has not seen.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class IpAddressBackfill {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final AlertRepository alertRepository;
+    private final DeviceRepository deviceRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        try {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            long alerts = 0;
+            Long after = 0L;
+            while (after != null) {
+                Long from = after;
+                List<Alert> batch = transaction.execute(status -> {
+                    List<Alert> rows = alertRepository.findWithoutAddresses(from, PageRequest.ofSize(BATCH_SIZE));
+                    rows.forEach(Alert::updateAddresses);
+                    return rows;
+                });
+                alerts += batch.size();
+                after = batch.size() < BATCH_SIZE ? null : batch.getLast().getId();
+            }
+            long devices = 0;
+            after = 0L;
+            while (after != null) {
+                Long from = after;
+                List<Device> batch = transaction.execute(status -> {
+                    List<Device> rows = deviceRepository.findWithoutAddress(from, PageRequest.ofSize(BATCH_SIZE));
+                    rows.forEach(Device::updateAddress);
+                    return rows;
+                });
+                devices += batch.size();
+                after = batch.size() < BATCH_SIZE ? null : batch.getLast().getId();
+            }
+            if (alerts + devices > 0) {
+                log.info("Backfilled binary addresses of {} alerts and {} devices", alerts, devices);
+            }
+        } catch (Exception e) {
+            log.error("Error backfilling binary IP addresses, CIDR queries will miss older rows", e);
+        }
+    }
+}
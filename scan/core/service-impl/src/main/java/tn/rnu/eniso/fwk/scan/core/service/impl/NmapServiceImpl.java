@@ -12,6 +12,7 @@ import tn.rnu.eniso.fwk.scan.core.dal.repository.ScanSessionRepository;
 import tn.rnu.eniso.fwk.scan.core.infra.model.Device;
 import tn.rnu.eniso.fwk.scan.core.infra.model.Port;
 import tn.rnu.eniso.fwk.scan.core.infra.model.ScanSession;
+import tn.rnu.eniso.fwk.scan.core.infra.util.CidrBlock;
 import tn.rnu.eniso.fwk.scan.core.service.api.NmapService;
 
 import javax.xml.parsers.DocumentBuilder;
@@ -28,6 +29,7 @@ public class NmapServiceImpl implements NmapService {
 
     private final ScanSessionRepository scanSessionRepository;
     private final DeviceRepository deviceRepository;
+    private final DeviceCorrelationIndex deviceCorrelationIndex;
 
     @Override
     @Transactional
@@ -75,7 +77,11 @@ public class NmapServiceImpl implements NmapService {
             scanSession.setStatus("ERROR");
         }
 
-        return scanSessionRepository.save(scanSession);
+        ScanSession savedSession = scanSessionRepository.save(scanSession);
+        if ("COMPLETED".equals(savedSession.getStatus())) {
+            deviceCorrelationIndex.onScanCompleted(savedSession.getDevices());
+        }
+        return savedSession;
     }
 
     private List<Device> parseNmapXml(String xml, ScanSession scanSession) {
@@ -175,6 +181,12 @@ public class NmapServiceImpl implements NmapService {
         return deviceRepository.findByScanSessionId(scanId);
     }
 
+    @Override
+    public List<Device> getDevicesInNetwork(String cidr) {
+        CidrBlock block = CidrBlock.parse(cidr);
+        return deviceRepository.findByAddressBetweenOrderByAddressAscIdDesc(block.lowerBound(), block.upperBound());
+    }
+
     @Override
     public ScanSession getScanById(Long scanId) {
         return scanSessionRepository.findById(scanId)
@@ -0,0 +1,105 @@
+package tn.rnu.eniso.fwk.scan.core.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import tn.rnu.eniso.fwk.scan.core.dal.repository.AlertRepository;
+import tn.rnu.eniso.fwk.scan.core.infra.model.Alert;
+
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Predicate;
+
+/**
+ * Lock-free ring of the last {@code suricata.recent.capacity} committed alerts, seeded with
+ * the newest alerts of the database at startup. Writers claim a sequence number and store
+ * the alert in its slot tagged with it; readers walk back from the newest sequence and
+ * skip slots whose tag does not match, i.e. still being written or already overwritten.
+ * Alerts are returned in commit order, newest first, so only live alerts are added:
+ * backfilled ones would pass for the newest, and merely make the database the source of
+ * truth again.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class RecentAlertsBuffer {
+
+    private final AlertRepository alertRepository;
+
+    @Value("${suricata.recent.capacity:5000}")
+    private int capacity;
+
+    private AtomicReferenceArray<Slot> slots;
+    private final AtomicLong next = new AtomicLong();
+    private volatile boolean seededAll;
+
+    @PostConstruct
+    public void seed() {
+        slots = new AtomicReferenceArray<>(capacity);
+        try {
+            Sort newestFirst = Sort.by(Sort.Order.desc("timestamp"), Sort.Order.desc("id"));
+            List<Alert> newest = alertRepository.findAllBy(PageRequest.of(0, capacity, newestFirst));
+            add(newest.reversed());
+            seededAll = newest.size() < capacity;
+            log.info("Seeded recent alerts buffer with {} alerts", newest.size());
+        } catch (Exception e) {
+            log.error("Error seeding recent alerts buffer, older alerts will be read from the database", e);
+        }
+    }
+
+    public void add(Collection<Alert> alerts) {
+        for (Alert alert : alerts) {
+            long sequence = next.getAndIncrement();
+            int index = (int) (sequence % capacity);
+            Slot slot = new Slot(sequence, alert);
+            Slot current;
+            do {
+                current = slots.get(index);
+                // A writer that stalled for a whole lap must not overwrite a newer alert
+                if (current != null && current.sequence > sequence) {
+                    break;
+                }
+            } while (!slots.compareAndSet(index, current, slot));
+        }
+    }
+
+    /**
+     * Up to {@code limit} of the buffered alerts matching the filter, newest first
+     */
+    public List<Alert> latest(int limit, Predicate<Alert> filter) {
+        List<Alert> result = new ArrayList<>(Math.min(limit, capacity));
+        long end = next.get();
+        for (long sequence = end - 1; sequence >= Math.max(0, end - capacity) && result.size() < limit; sequence--) {
+            Slot slot = slots.get((int) (sequence % capacity));
+            if (slot != null && slot.sequence == sequence && filter.test(slot.alert)) {
+                result.add(slot.alert);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Alerts were stored without being added, so the buffer no longer holds every alert
+     */
+    public void missed() {
+        seededAll = false;
+    }
+
+    /**
+     * Whether every alert in the database is also in the buffer, so a scan that finds
+     * fewer matches than requested is complete
+     */
+    public boolean holdsAll() {
+        return seededAll && next.get() <= capacity;
+    }
+
+    private record Slot(long sequence, Alert alert) {
+    }
+}
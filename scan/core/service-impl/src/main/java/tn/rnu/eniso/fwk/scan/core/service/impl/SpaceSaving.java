@@ -0,0 +1,146 @@
+package tn.rnu.eniso.fwk.scan.core.service.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Weighted Space-Saving summary: monitors at most {@code capacity} keys in an indexed
+ * min-heap. A new key evicts the smallest counter and inherits its count as error, so
+ * every estimate overcounts by at most {@link #floor()}, and any key not monitored
+ * occurred at most {@code floor()} times.
+ */
+final class SpaceSaving {
+
+    private final int capacity;
+    private final String[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    private final Map<String, Integer> positions;
+    private int size;
+
+    SpaceSaving(int capacity) {
+        this.capacity = capacity;
+        this.keys = new String[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.positions = new HashMap<>(capacity * 2);
+    }
+
+    void add(String key, long weight) {
+        if (key == null) {
+            return;
+        }
+        Integer position = positions.get(key);
+        if (position != null) {
+            counts[position] += weight;
+            siftDown(position);
+        } else if (size < capacity) {
+            keys[size] = key;
+            counts[size] = weight;
+            errors[size] = 0;
+            positions.put(key, size);
+            siftUp(size++);
+        } else {
+            // Replace the minimum, which sits at the root
+            positions.remove(keys[0]);
+            errors[0] = counts[0];
+            counts[0] += weight;
+            keys[0] = key;
+            positions.put(key, 0);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Upper bound on the count of any key that is not monitored
+     */
+    long floor() {
+        return size < capacity ? 0 : counts[0];
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (counts[parent] <= counts[i]) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            int right = left + 1;
+            int smallest = i;
+            if (left < size && counts[left] < counts[smallest]) {
+                smallest = left;
+            }
+            if (right < size && counts[right] < counts[smallest]) {
+                smallest = right;
+            }
+            if (smallest == i) {
+                return;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        String key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        long count = counts[a];
+        counts[a] = counts[b];
+        counts[b] = count;
+        long error = errors[a];
+        errors[a] = errors[b];
+        errors[b] = error;
+        positions.put(keys[a], a);
+        positions.put(keys[b], b);
+    }
+
+    /**
+     * Union of several summaries. A key missing from a summary may still have occurred
+     * up to that summary's floor, which is added to both its estimate and its error.
+     */
+    static final class Merged {
+
+        private final Map<String, long[]> deltas = new HashMap<>();
+        private long floor;
+
+        void merge(SpaceSaving summary) {
+            long summaryFloor = summary.floor();
+            floor += summaryFloor;
+            for (int i = 0; i < summary.size; i++) {
+                long[] delta = deltas.computeIfAbsent(summary.keys[i], k -> new long[2]);
+                delta[0] += summary.counts[i] - summaryFloor;
+                delta[1] += summary.errors[i] - summaryFloor;
+            }
+        }
+
+        /**
+         * Maximum overcount of any estimate, and the most any unlisted key occurred
+         */
+        long maxError() {
+            return floor;
+        }
+
+        /**
+         * The {@code limit} largest estimates as (key, count, error), largest first
+         */
+        List<Estimate> top(int limit) {
+            List<Estimate> estimates = new ArrayList<>(deltas.size());
+            deltas.forEach((key, delta) -> estimates.add(new Estimate(key, delta[0] + floor, delta[1] + floor)));
+            estimates.sort((a, b) -> Long.compare(b.count(), a.count()));
+            return estimates.size() > limit ? estimates.subList(0, limit) : estimates;
+        }
+    }
+
+    record Estimate(String key, long count, long error) {
+    }
+}
@@ -0,0 +1,312 @@
+package tn.rnu.eniso.fwk.scan.core.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import tn.rnu.eniso.fwk.scan.core.infra.model.Alert;
+import tn.rnu.eniso.fwk.scan.core.service.api.SuricataService;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded hand-off between the log tailers and the database. A single writer thread
+ * drains the queue and persists lines in batches, flushing when the batch is full
+ * or when the linger time has elapsed since the first line of the batch. Alerts
+ * without an EVE {@code host} are attributed to the sensor of the line's source.
+ * In {@code aggregate} mode duplicates are collapsed by an {@link AlertAggregator}
+ * and only closed windows are written; the checkpoint of a batch is then held back
+ * until every window its alerts went into is closed and written.
+ * <p>
+ * Sources are told a batch is committed only once it is in the database. A batch that
+ * cannot be written because the database is unreachable or busy is retried with backoff,
+ * which blocks the tailers on the full queue, and abandoned only on shutdown, so the next
+ * start reads its lines again. A batch the database rejects is split in halves until the
+ * alerts at fault are found; those are dropped and counted, and the checkpoint moves on.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SuricataIngestPipeline {
+
+    @Value("${suricata.log.batch.size:500}")
+    private int batchSize;
+
+    @Value("${suricata.log.batch.linger:200}")
+    private long lingerMillis;
+
+    @Value("${suricata.log.queue.capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${suricata.alert.mode:raw}")
+    private String alertMode;
+
+    @Value("${suricata.alert.aggregation.window:60000}")
+    private long aggregationWindow;
+
+    @Value("${suricata.log.retry.initial:1000}")
+    private long initialRetryDelay;
+
+    @Value("${suricata.log.retry.max:60000}")
+    private long maxRetryDelay;
+
+    private final SuricataService suricataService;
+    private final EveLogParser eveLogParser;
+    private final SuricataMetrics metrics;
+
+    private BlockingQueue<Entry> queue;
+    private AlertAggregator aggregator;
+    // Written batches whose checkpoints wait for open windows, oldest first
+    private final Deque<PendingCommit> pendingCommits = new ArrayDeque<>();
+    private long batchSequence;
+    private Thread writer;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        if ("aggregate".equalsIgnoreCase(alertMode)) {
+            aggregator = new AlertAggregator(aggregationWindow);
+            metrics.registerAggregator(aggregator);
+        }
+        metrics.registerQueue(queue);
+        running = true;
+        writer = new Thread(this::drainLoop, "suricata-ingest-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Started Suricata ingest pipeline (batch size {}, linger {} ms, queue capacity {}, {} mode)",
+                batchSize, lingerMillis, queueCapacity, aggregator != null ? "aggregate" : "raw");
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Stopped Suricata ingest pipeline");
+    }
+
+    /**
+     * Queue a raw EVE line read from a sensor's file. Blocks while the queue is full so
+     * the tailer falls behind on the file instead of dropping lines. The source is told
+     * the end offset of the last line of each batch once that batch has been written.
+     */
+    public void submit(String line, String sensor, Source source, String fileKey, long endOffset)
+            throws InterruptedException {
+        queue.put(new Entry(line, sensor, source, fileKey, endOffset));
+    }
+
+    private void drainLoop() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(lingerMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    // Nothing new, but aggregation windows may have closed
+                    flush(batch);
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Entry next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+
+            if (!flush(batch)) {
+                // Later batches must not move checkpoints past the lines just abandoned
+                log.warn("Ingest writer stopped with {} queued lines unwritten, they are read again on restart",
+                        queue.size());
+                return;
+            }
+        }
+
+        if (aggregator != null && saveWithRetry(aggregator.drain(), 0)) {
+            commitUpTo(Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * @return false if the batch was abandoned on shutdown
+     */
+    private boolean flush(List<Entry> batch) {
+        if (batch.isEmpty() && aggregator == null) {
+            return true;
+        }
+
+        List<Alert> alerts = new ArrayList<>(batch.size());
+        Map<Source, Entry> lastBySource = new LinkedHashMap<>();
+        Map<Source, Integer> countBySource = new HashMap<>();
+        for (Entry entry : batch) {
+            Alert alert = parse(entry.line());
+            if (alert != null) {
+                if (alert.getSensor() == null) {
+                    alert.setSensor(entry.sensor());
+                }
+                alerts.add(alert);
+            }
+            if (entry.source() != null) {
+                lastBySource.put(entry.source(), entry);
+                countBySource.merge(entry.source(), 1, Integer::sum);
+            }
+        }
+
+        long sequence = ++batchSequence;
+        if (aggregator != null) {
+            alerts = aggregator.add(alerts, sequence);
+            alerts.addAll(aggregator.expired());
+        }
+
+        int lineCount = batch.size();
+        batch.clear();
+        if (!saveWithRetry(alerts, lineCount)) {
+            return false;
+        }
+
+        if (!lastBySource.isEmpty()) {
+            pendingCommits.add(new PendingCommit(sequence, lastBySource, countBySource));
+        }
+        commitUpTo(aggregator != null ? aggregator.oldestBatch() : Long.MAX_VALUE);
+        return true;
+    }
+
+    /**
+     * Checkpoint the written batches numbered below the given one
+     */
+    private void commitUpTo(long sequence) {
+        while (!pendingCommits.isEmpty() && pendingCommits.peek().sequence() < sequence) {
+            PendingCommit commit = pendingCommits.poll();
+            commit.lastBySource().forEach((source, entry) ->
+                    source.committed(entry.fileKey(), entry.endOffset(), commit.countBySource().get(source)));
+        }
+    }
+
+    /**
+     * Save the alerts, waiting longer after each transient failure. Alerts rejected for
+     * any other reason are found by splitting the batch and dropped.
+     *
+     * @return false if the writer was stopped first
+     */
+    private boolean saveWithRetry(List<Alert> alerts, int lineCount) {
+        if (alerts.isEmpty()) {
+            return true;
+        }
+        long delay = initialRetryDelay;
+        while (true) {
+            try {
+                suricataService.saveAlerts(alerts);
+                log.debug("Flushed {} Suricata log lines ({} alerts)", lineCount, alerts.size());
+                return true;
+            } catch (Exception e) {
+                if (!isTransient(e)) {
+                    return saveInParts(alerts, e);
+                }
+                if (!running) {
+                    log.error("Abandoning batch of {} alerts on shutdown", alerts.size(), e);
+                    metrics.dropped(alerts, "db_error");
+                    return false;
+                }
+                log.warn("Error flushing batch of {} alerts, retrying in {} ms: {}", alerts.size(), delay, e.getMessage());
+            }
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            delay = Math.min(delay * 2, maxRetryDelay);
+        }
+    }
+
+    private boolean saveInParts(List<Alert> alerts, Exception error) {
+        if (alerts.size() == 1) {
+            Alert alert = alerts.getFirst();
+            log.error("Dropping alert of rule {}:{} from sensor {} at {}, the database rejected it",
+                    alert.getGeneratorId(), alert.getSignatureId(), alert.getSensor(), alert.getTimestamp(), error);
+            metrics.dropped(alerts, "rejected");
+            return true;
+        }
+        log.warn("Batch of {} alerts rejected, saving it in halves: {}", alerts.size(), error.getMessage());
+        int middle = alerts.size() / 2;
+        return saveWithRetry(alerts.subList(0, middle), 0) && saveWithRetry(alerts.subList(middle, alerts.size()), 0);
+    }
+
+    /**
+     * Whether the failure is the database being unreachable or busy, rather than the data
+     */
+    static boolean isTransient(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException
+                    || cause instanceof RecoverableDataAccessException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof CannotCreateTransactionException
+                    || cause instanceof SQLTransientException
+                    || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+            // Connection exceptions and transaction rollbacks such as deadlocks
+            if (cause instanceof SQLException sql && sql.getSQLState() != null
+                    && (sql.getSQLState().startsWith("08") || sql.getSQLState().startsWith("40"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Alert parse(String line) {
+        try {
+            return eveLogParser.parse(line);
+        } catch (Exception e) {
+            log.error("Error processing EVE log: {}", line, e);
+            return null;
+        }
+    }
+
+    /**
+     * A file-backed producer that checkpoints its read position once lines are written.
+     */
+    public interface Source {
+        void committed(String fileKey, long endOffset, int lineCount);
+    }
+
+    private record Entry(String line, String sensor, Source source, String fileKey, long endOffset) {
+    }
+
+    private record PendingCommit(long sequence, Map<Source, Entry> lastBySource, Map<Source, Integer> countBySource) {
+    }
+}
@@ -2,77 +2,197 @@ package tn.rnu.eniso.fwk.scan.core.service.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.io.input.Tailer;
-import org.apache.commons.io.input.TailerListenerAdapter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
-import tn.rnu.eniso.fwk.scan.core.service.api.SuricataService;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
-import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
+/**
+ * Tails every EVE file matched by {@code suricata.log.path}, which may be a single file,
+ * a directory or a glob such as {@code /var/log/suricata/eve-*.json}. Each file gets
+ * its own tailer on a virtual thread, all feeding the shared ingest pipeline, and the
+ * location is rescanned periodically so new sensors are picked up without a restart.
+ */
 @Service
 @Slf4j
 @RequiredArgsConstructor
 @ConditionalOnProperty(name = "suricata.log.monitor.enabled", havingValue = "true", matchIfMissing = false)
 public class SuricataLogMonitor {
 
+    private static final int DIRECTORY_DEPTH = 2;
+
     @Value("${suricata.log.path:/var/log/suricata/eve.json}")
     private String logFilePath;
 
     @Value("${suricata.log.monitor.delay:1000}")
     private long monitorDelay;
 
-    private final SuricataService suricataService;
+    @Value("${suricata.log.discovery.interval:10000}")
+    private long discoveryInterval;
+
+    @Value("${suricata.log.read-buffer-size:1048576}")
+    private int readBufferSize;
+
+    @Value("${suricata.log.checkpoint.dir:data/checkpoints}")
+    private String checkpointDir;
+
+    @Value("${suricata.log.checkpoint.interval:1000}")
+    private int checkpointInterval;
+
+    @Value("${suricata.log.start-position:end}")
+    private String startPosition;
 
-    private Tailer tailer;
+    private final SuricataIngestPipeline ingestPipeline;
+    private final SuricataMetrics metrics;
+
+    private final Map<Path, Tail> tails = new ConcurrentHashMap<>();
+    private Thread discoveryThread;
+    private volatile boolean running;
 
     @PostConstruct
     public void startMonitoring() {
-        File logFile = new File(logFilePath);
+        running = true;
+        if (isSingleFile()) {
+            Path logFile = Path.of(logFilePath);
+            if (!Files.exists(logFile)) {
+                log.warn("Suricata log file does not exist: {}. Monitoring will start when file is created.", logFilePath);
+            }
+            // Keeps the checkpoint name used before multi-sensor support
+            startTail(logFile, Path.of(checkpointDir).resolve(logFile.getFileName() + ".checkpoint"));
+            log.info("Started monitoring Suricata log file: {}", logFilePath);
+            return;
+        }
 
-        if (!logFile.exists()) {
-            log.warn("Suricata log file does not exist: {}. Monitoring will start when file is created.", logFilePath);
+        discoveryThread = Thread.ofVirtual().name("suricata-discovery").start(this::discoveryLoop);
+        log.info("Started monitoring Suricata log files matching: {}", logFilePath);
+    }
+
+    @PreDestroy
+    public void stopMonitoring() {
+        running = false;
+        if (discoveryThread != null) {
+            discoveryThread.interrupt();
+        }
+        tails.values().forEach(tail -> {
+            tail.tailer().stop();
+            tail.thread().interrupt();
+        });
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        for (Tail tail : tails.values()) {
+            try {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                tail.thread().join(Math.max(remaining, 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
         }
+        log.info("Stopped monitoring {} Suricata log files", tails.size());
+    }
 
-        TailerListenerAdapter listener = new TailerListenerAdapter() {
-            @Override
-            public void handle(String line) {
-                if (line != null && !line.trim().isEmpty()) {
-                    try {
-                        // Process the EVE JSON log line
-                        suricataService.processEveLog(line);
-                        log.debug("Processed Suricata log line");
-                    } catch (Exception e) {
-                        log.error("Error processing log line: {}", line, e);
+    private void discoveryLoop() {
+        while (running) {
+            try {
+                for (Path file : discover()) {
+                    if (!tails.containsKey(file)) {
+                        String checkpointName = file.toString().replaceAll("[^A-Za-z0-9._-]", "_") + ".checkpoint";
+                        startTail(file, Path.of(checkpointDir).resolve(checkpointName));
                     }
                 }
+            } catch (IOException e) {
+                log.error("Error discovering Suricata log files matching {}", logFilePath, e);
             }
-
-            @Override
-            public void fileNotFound() {
-                log.warn("Suricata log file not found: {}", logFilePath);
+            try {
+                Thread.sleep(discoveryInterval);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
             }
+        }
+    }
+
+    private List<Path> discover() throws IOException {
+        Path location = Path.of(logFilePath).toAbsolutePath();
+        List<Path> files = new ArrayList<>();
 
-            @Override
-            public void fileRotated() {
-                log.info("Suricata log file rotated: {}", logFilePath);
+        if (Files.isDirectory(location)) {
+            try (Stream<Path> stream = Files.walk(location, DIRECTORY_DEPTH)) {
+                stream.filter(Files::isRegularFile)
+                        .filter(p -> p.getFileName().toString().endsWith(".json"))
+                        .forEach(files::add);
             }
-        };
+            return files;
+        }
+
+        // Walk from the deepest directory without wildcards
+        Path base = location;
+        while (base != null && isPattern(base.toString())) {
+            base = base.getParent();
+        }
+        if (base == null || !Files.isDirectory(base)) {
+            return files;
+        }
+        int depth = logFilePath.contains("**") ? Integer.MAX_VALUE : location.getNameCount() - base.getNameCount();
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + location);
+        try (Stream<Path> stream = Files.walk(base, depth)) {
+            stream.filter(Files::isRegularFile).filter(matcher::matches).forEach(files::add);
+        }
+        return files;
+    }
 
-        // Create tailer that follows the file (like tail -f)
-        tailer = Tailer.create(logFile, listener, monitorDelay, true);
+    private void startTail(Path file, Path checkpointPath) {
+        String sensor = sensorName(file);
+        EveFileTailer tailer = new EveFileTailer(
+                file,
+                sensor,
+                checkpointPath,
+                ingestPipeline,
+                readBufferSize,
+                monitorDelay,
+                checkpointInterval,
+                "end".equalsIgnoreCase(startPosition));
 
-        log.info("Started monitoring Suricata log file: {}", logFilePath);
+        metrics.registerTailer(sensor, tailer);
+        Thread thread = Thread.ofVirtual().name("suricata-tailer-" + sensor).start(tailer);
+        tails.put(file, new Tail(sensor, tailer, thread));
+        log.info("Tailing Suricata log file {} as sensor {}", file, sensor);
     }
 
-    @PreDestroy
-    public void stopMonitoring() {
-        if (tailer != null) {
-            tailer.stop();
-            log.info("Stopped monitoring Suricata log file");
+    private boolean isSingleFile() {
+        return !isPattern(logFilePath) && !Files.isDirectory(Path.of(logFilePath));
+    }
+
+    private static boolean isPattern(String path) {
+        return path.contains("*") || path.contains("?") || path.contains("{") || path.contains("[");
+    }
+
+    /**
+     * {@code /var/log/suricata/eth0/eve.json} is sensor {@code eth0},
+     * {@code /var/log/suricata/eve-eth0.json} is sensor {@code eve-eth0}
+     */
+    static String sensorName(Path file) {
+        String name = file.getFileName().toString();
+        String base = name.endsWith(".json") ? name.substring(0, name.length() - ".json".length()) : name;
+        Path parent = file.toAbsolutePath().getParent();
+        if ("eve".equals(base) && parent != null && parent.getFileName() != null) {
+            return parent.getFileName().toString();
         }
+        return base;
+    }
+
+    private record Tail(String sensor, EveFileTailer tailer, Thread thread) {
     }
 }
@@ -0,0 +1,156 @@
+package tn.rnu.eniso.fwk.scan.core.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import tn.rnu.eniso.fwk.scan.core.infra.model.Alert;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Meters of the Suricata ingest path, exported by the actuator Prometheus endpoint as
+ * e.g. {@code suricata_eve_parse_seconds}. Alert meters are tagged by severity and
+ * sensor, parse meters by EVE event type.
+ */
+@Component
+@RequiredArgsConstructor
+public class SuricataMetrics {
+
+    private static final String UNKNOWN = "unknown";
+
+    private final MeterRegistry registry;
+
+    private final Map<String, Timer> parseTimers = new ConcurrentHashMap<>();
+
+    /**
+     * One EVE line decoded; {@code kept} is false for event types that are filtered out
+     */
+    public void parsed(String eventType, boolean kept, long nanos) {
+        String type = eventType != null ? eventType : UNKNOWN;
+        parseTimers.computeIfAbsent(type + (kept ? "" : "/skipped"), k -> Timer.builder("suricata.eve.parse")
+                        .description("Time to decode one EVE line")
+                        .tag("event_type", type)
+                        .tag("outcome", kept ? "kept" : "skipped")
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * An EVE line that could not be decoded
+     */
+    public void rejected(String eventType) {
+        registry.counter("suricata.eve.rejected", "event_type", eventType != null ? eventType : UNKNOWN).increment();
+    }
+
+    public void stored(Collection<Alert> alerts, long nanos) {
+        Timer.builder("suricata.db.write")
+                .description("Time to write one batch of alerts to the database")
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        countBySeverityAndSensor(alerts, "suricata.alerts.stored", null);
+    }
+
+    /**
+     * Alerts lost because their batch could not be written
+     */
+    public void dropped(Collection<Alert> alerts, String reason) {
+        countBySeverityAndSensor(alerts, "suricata.alerts.dropped", reason);
+    }
+
+    public void indexed(int documents, long nanos, boolean success) {
+        Timer.builder("suricata.es.bulk")
+                .description("Elasticsearch bulk request latency")
+                .tag("outcome", success ? "success" : "failure")
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        registry.counter("suricata.es.documents", "outcome", success ? "success" : "failure").increment(documents);
+    }
+
+    public void indexFailed(Alert alert) {
+        registry.counter("suricata.es.failures", "severity", severity(alert), "sensor", sensor(alert)).increment();
+    }
+
+    public void registerIndexOutbox(Supplier<Number> pending, Supplier<Number> rejected, BooleanSupplier circuitOpen) {
+        Gauge.builder("suricata.es.outbox.pending", pending)
+                .description("Alerts waiting to be indexed in Elasticsearch")
+                .register(registry);
+        Gauge.builder("suricata.es.outbox.rejected", rejected)
+                .description("Alerts Elasticsearch kept rejecting, no longer retried")
+                .register(registry);
+        Gauge.builder("suricata.es.circuit.open", () -> circuitOpen.getAsBoolean() ? 1 : 0)
+                .description("1 while indexing is paused because Elasticsearch is unavailable")
+                .register(registry);
+    }
+
+    public void registerQueue(Collection<?> queue) {
+        Gauge.builder("suricata.ingest.queue.depth", queue, Collection::size)
+                .description("EVE lines waiting for the ingest writer")
+                .register(registry);
+    }
+
+    public void registerAggregator(AlertAggregator aggregator) {
+        Gauge.builder("suricata.ingest.aggregation.open", aggregator, AlertAggregator::size)
+                .description("Open aggregation windows")
+                .register(registry);
+    }
+
+    public void registerTailer(String sensor, EveFileTailer tailer) {
+        FunctionCounter.builder("suricata.tailer.lines", tailer, EveFileTailer::getLinesRead)
+                .description("EVE lines read from the sensor's file")
+                .tag("sensor", sensor)
+                .register(registry);
+        Gauge.builder("suricata.tailer.lag", tailer, EveFileTailer::getLag)
+                .description("Bytes between the reader position and the end of the file")
+                .baseUnit("bytes")
+                .tag("sensor", sensor)
+                .register(registry);
+    }
+
+    public void registerStreamSubscribers(Collection<?> subscribers) {
+        Gauge.builder("suricata.stream.subscribers", subscribers, Collection::size)
+                .description("Connected alert stream clients")
+                .register(registry);
+    }
+
+    /**
+     * Alerts not delivered in full to a stream client that could not keep up, by overflow
+     * policy or COALESCE when summarized
+     */
+    public void streamDropped(String reason, long alerts) {
+        registry.counter("suricata.stream.dropped", "reason", reason).increment(alerts);
+    }
+
+    private void countBySeverityAndSensor(Collection<Alert> alerts, String name, String reason) {
+        Map<Map.Entry<String, String>, Integer> counts = new HashMap<>();
+        for (Alert alert : alerts) {
+            counts.merge(Map.entry(severity(alert), sensor(alert)), 1, Integer::sum);
+        }
+        counts.forEach((key, count) -> {
+            Counter.Builder builder = Counter.builder(name)
+                    .tag("severity", key.getKey())
+                    .tag("sensor", key.getValue());
+            if (reason != null) {
+                builder.tag("reason", reason);
+            }
+            builder.register(registry).increment(count);
+        });
+    }
+
+    private static String severity(Alert alert) {
+        return alert.getSeverity() != null ? alert.getSeverity().name() : UNKNOWN;
+    }
+
+    private static String sensor(Alert alert) {
+        return alert.getSensor() != null ? alert.getSensor() : UNKNOWN;
+    }
+}
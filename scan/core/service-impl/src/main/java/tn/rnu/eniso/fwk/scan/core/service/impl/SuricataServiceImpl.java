@@ -1,81 +1,187 @@
 package tn.rnu.eniso.fwk.scan.core.service.impl;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import tn.rnu.eniso.fwk.scan.core.dal.repository.AlertRepository;
-import tn.rnu.eniso.fwk.scan.core.dal.repository.DeviceRepository;
+import tn.rnu.eniso.fwk.scan.core.dal.repository.AlertRollupRepository;
+import tn.rnu.eniso.fwk.scan.core.dal.repository.AlertSpecifications;
 import tn.rnu.eniso.fwk.scan.core.infra.model.Alert;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertCursorPage;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertDimension;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertDistinctCounts;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertHistogram;
 import tn.rnu.eniso.fwk.scan.core.infra.model.AlertSeverity;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertSignature;
 import tn.rnu.eniso.fwk.scan.core.infra.model.AlertStatistics;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertTopK;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertView;
 import tn.rnu.eniso.fwk.scan.core.infra.model.Device;
-import tn.rnu.eniso.fwk.scan.core.service.api.ElasticsearchService;
+import tn.rnu.eniso.fwk.scan.core.infra.model.RollupResolution;
+import tn.rnu.eniso.fwk.scan.core.infra.util.CidrBlock;
+import tn.rnu.eniso.fwk.scan.core.service.api.AlertsIngestedEvent;
 import tn.rnu.eniso.fwk.scan.core.service.api.SuricataService;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@DependsOn("alertIdSequence")
 public class SuricataServiceImpl implements SuricataService {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_HISTOGRAM_BUCKETS = 10_000;
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("timestamp"), Sort.Order.desc("id"));
+
     private final AlertRepository alertRepository;
-    private final DeviceRepository deviceRepository;
-    private final ElasticsearchService elasticsearchService;
-    private final ObjectMapper objectMapper = createObjectMapper();
+    private final AlertRollupRepository alertRollupRepository;
+    private final AlertRollupWriter alertRollupWriter;
+    private final RecentAlertsBuffer recentAlerts;
+    private final DeviceCorrelationIndex deviceCorrelationIndex;
+    private final AlertStatisticsEngine statisticsEngine;
+    private final AlertIndexOutbox indexOutbox;
+    private final EveLogParser eveLogParser;
+    private final AlertSignatureDictionary signatureDictionary;
+    private final AlertPayloadStore payloadStore;
+    private final SuricataMetrics metrics;
+    private final IngestWatermark ingestWatermark;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
+
+    @Override
+    public List<AlertView> getRecentAlerts(int limit, AlertSeverity severity, String ipAddress, boolean includeDevice) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<Alert> alerts = recentAlerts.latest(size, alert -> (severity == null || severity == alert.getSeverity())
+                && (ipAddress == null || ipAddress.equals(alert.getSourceIp()) || ipAddress.equals(alert.getDestIp())));
+        if (alerts.size() == size || recentAlerts.holdsAll()) {
+            return alerts.stream().map(alert -> AlertView.of(alert, includeDevice)).toList();
+        }
 
-    private static ObjectMapper createObjectMapper() {
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule());
-        return mapper;
+        // Older matches may have left the buffer
+        Specification<Alert> filter = Specification.where(AlertSpecifications.hasSeverity(severity))
+                .and(AlertSpecifications.involvesIp(ipAddress));
+        return alertRepository.findViews(filter, PageRequest.of(0, size, NEWEST_FIRST), includeDevice);
     }
 
     @Override
-    public List<Alert> getRecentAlerts(int limit) {
-        return alertRepository.findTop100ByOrderByTimestampDesc()
-                .stream()
-                .limit(limit)
-                .collect(Collectors.toList());
+    public Page<AlertView> getAlerts(Pageable pageable, boolean includeDevice) {
+        Pageable page = PageRequest.of(pageable.getPageNumber(), Math.max(1, Math.min(pageable.getPageSize(), MAX_PAGE_SIZE)),
+                NEWEST_FIRST);
+        List<AlertView> content = alertRepository.findViews(null, page, includeDevice);
+        return PageableExecutionUtils.getPage(content, page, alertRepository::count);
+    }
+
+    @Override
+    public AlertCursorPage getAlertsByCursor(String cursor, int size, AlertSeverity severity, String ipAddress,
+                                             boolean includeTotal, boolean includeDevice) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Specification<Alert> filter = Specification.where(AlertSpecifications.hasSeverity(severity))
+                .and(AlertSpecifications.involvesIp(ipAddress));
+
+        Specification<Alert> page = filter;
+        if (cursor != null && !cursor.isEmpty()) {
+            Alert position = decodeCursor(cursor);
+            page = page.and(AlertSpecifications.before(position.getTimestamp(), position.getId()));
+        }
+
+        // One extra row tells whether another page follows, without counting
+        List<AlertView> rows = alertRepository.findViews(page, PageRequest.of(0, limit + 1, NEWEST_FIRST), includeDevice);
+        boolean hasNext = rows.size() > limit;
+        List<AlertView> content = hasNext ? new ArrayList<>(rows.subList(0, limit)) : rows;
+        String nextCursor = hasNext ? encodeCursor(content.get(content.size() - 1)) : null;
+        Long total = includeTotal ? alertRepository.count(filter) : null;
+
+        return new AlertCursorPage(content, nextCursor, hasNext, total);
+    }
+
+    @Override
+    public List<AlertView> getAlertsByTimeRange(LocalDateTime start, LocalDateTime end, boolean includeDevice) {
+        return alertRepository.findViews(AlertSpecifications.between(start, end), Pageable.unpaged(NEWEST_FIRST),
+                includeDevice);
     }
 
     @Override
-    public Page<Alert> getAlerts(Pageable pageable) {
-        return alertRepository.findByOrderByTimestampDesc(pageable);
+    @Transactional(readOnly = true)
+    public long exportAlerts(LocalDateTime start, LocalDateTime end, AlertSeverity severity, String ipAddress,
+                             Consumer<Alert> consumer) {
+        long count = 0;
+        try (Stream<Alert> alerts = alertRepository.streamForExport(start, end, severity, ipAddress)) {
+            for (Alert alert : (Iterable<Alert>) alerts::iterator) {
+                consumer.accept(alert);
+                // Keep the persistence context from growing with the export
+                entityManager.detach(alert);
+                count++;
+            }
+        }
+        return count;
     }
 
     @Override
-    public List<Alert> getAlertsByTimeRange(LocalDateTime start, LocalDateTime end) {
-        return alertRepository.findByTimestampBetween(start, end);
+    public List<AlertView> getAlertsBySeverity(AlertSeverity severity, boolean includeDevice) {
+        return alertRepository.findViews(AlertSpecifications.hasSeverity(severity), Pageable.unpaged(NEWEST_FIRST),
+                includeDevice);
     }
 
     @Override
-    public List<Alert> getAlertsBySeverity(AlertSeverity severity) {
-        return alertRepository.findBySeverityOrderByTimestampDesc(severity);
+    public List<AlertView> getAlertsByIp(String ipAddress, boolean includeDevice) {
+        return alertRepository.findViews(AlertSpecifications.involvesIp(ipAddress), Pageable.unpaged(NEWEST_FIRST),
+                includeDevice);
     }
 
     @Override
-    public List<Alert> getAlertsByIp(String ipAddress) {
-        return alertRepository.findByIpAddress(ipAddress);
+    public List<AlertView> getAlertsByCidr(String cidr, LocalDateTime since, int limit, boolean includeDevice) {
+        CidrBlock block = CidrBlock.parse(cidr);
+        Specification<Alert> filter = Specification.where(AlertSpecifications.inAddressRange(block.lowerBound(), block.upperBound()))
+                .and(AlertSpecifications.since(since));
+        return alertRepository.findViews(filter, PageRequest.of(0, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)), NEWEST_FIRST),
+                includeDevice);
     }
 
     @Override
     public Alert getAlertById(Long id) {
-        return alertRepository.findById(id)
+        Alert alert = alertRepository.findWithDeviceById(id)
                 .orElseThrow(() -> new RuntimeException("Alert not found with id: " + id));
+        alert.setPayload(payloadStore.load(id));
+        return alert;
     }
 
     @Override
+    public String getAlertPayload(Long id) {
+        return payloadStore.load(id);
+    }
+
+    @Override
+    @Cacheable(cacheNames = IngestWatermark.STATISTICS_CACHE, key = "{#since, @ingestWatermark.current()}", sync = true)
     public AlertStatistics getStatistics(LocalDateTime since) {
+        if (statisticsEngine.covers(since)) {
+            return statisticsEngine.getStatistics(since);
+        }
+        return getStatisticsFromRepository(since);
+    }
+
+    private AlertStatistics getStatisticsFromRepository(LocalDateTime since) {
         AlertStatistics stats = new AlertStatistics();
 
         // Total alerts
@@ -87,31 +193,30 @@ public class SuricataServiceImpl implements SuricataService {
         stats.setMediumAlerts(alertRepository.countBySeverityAndTimestampAfter(AlertSeverity.MEDIUM, since));
         stats.setLowAlerts(alertRepository.countBySeverityAndTimestampAfter(AlertSeverity.LOW, since));
 
-        // Alerts by category
-        Map<String, Long> categoryMap = new LinkedHashMap<>();
-        alertRepository.countByCategory(since).forEach(row -> categoryMap.put((String) row[0], (Long) row[1]));
-        stats.setAlertsByCategory(categoryMap);
+        // Alerts by category and top signatures, from one count per signature dictionary entry
+        List<Object[]> signatureCounts = alertRepository.countBySignatureRef(since);
+        stats.setAlertsByCategory(sumBySignature(signatureCounts, AlertSignature::getCategory, Integer.MAX_VALUE));
+        stats.setTopSignatures(sumBySignature(signatureCounts, AlertSignature::getSignature, 10));
 
         // Top source IPs
         Map<String, Long> sourceIpMap = new LinkedHashMap<>();
-        alertRepository.countBySourceIp(since).stream().limit(10)
+        alertRepository.countBySourceIp(since, PageRequest.of(0, 10))
                 .forEach(row -> sourceIpMap.put((String) row[0], (Long) row[1]));
         stats.setTopSourceIps(sourceIpMap);
 
         // Top destination IPs
         Map<String, Long> destIpMap = new LinkedHashMap<>();
-        alertRepository.countByDestIp(since).stream().limit(10)
+        alertRepository.countByDestIp(since, PageRequest.of(0, 10))
                 .forEach(row -> destIpMap.put((String) row[0], (Long) row[1]));
         stats.setTopDestIps(destIpMap);
 
-        // Top signatures
-        Map<String, Long> signatureMap = new LinkedHashMap<>();
-        alertRepository.countBySignature(since).stream().limit(10)
-                .forEach(row -> signatureMap.put((String) row[0], (Long) row[1]));
-        stats.setTopSignatures(signatureMap);
+        // Alerts by sensor
+        Map<String, Long> sensorMap = new LinkedHashMap<>();
+        alertRepository.countBySensor(since).forEach(row -> sensorMap.put((String) row[0], (Long) row[1]));
+        stats.setAlertsBySensor(sensorMap);
 
         // Time-based counts
-        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
         stats.setAlertsLastHour(alertRepository.countByTimestampAfter(now.minusHours(1)));
         stats.setAlertsLast24Hours(alertRepository.countByTimestampAfter(now.minusDays(1)));
         stats.setAlertsLast7Days(alertRepository.countByTimestampAfter(now.minusDays(7)));
@@ -119,95 +224,272 @@ public class SuricataServiceImpl implements SuricataService {
         return stats;
     }
 
+    @Override
+    public AlertTopK getTopK(AlertDimension dimension, LocalDateTime since, int limit, boolean exact) {
+        if (!exact && statisticsEngine.covers(since)) {
+            return statisticsEngine.getTopK(dimension, since, limit);
+        }
+
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        PageRequest top = PageRequest.of(0, size);
+        List<AlertTopK.Entry> entries = switch (dimension) {
+            case SOURCE_IP -> toEntries(alertRepository.countBySourceIp(since, top));
+            case DEST_IP -> toEntries(alertRepository.countByDestIp(since, top));
+            case SIGNATURE -> toEntries(sumBySignature(alertRepository.countBySignatureRef(since), AlertSignature::getSignature, size));
+        };
+        return new AlertTopK(dimension, since, true, 0, entries);
+    }
+
+    private static List<AlertTopK.Entry> toEntries(List<Object[]> rows) {
+        return rows.stream().map(row -> new AlertTopK.Entry((String) row[0], (Long) row[1], 0)).toList();
+    }
+
+    private static List<AlertTopK.Entry> toEntries(Map<String, Long> counts) {
+        return counts.entrySet().stream().map(e -> new AlertTopK.Entry(e.getKey(), e.getValue(), 0)).toList();
+    }
+
+    /**
+     * Fold per-entry counts into the largest {@code limit} counts of an attribute of the
+     * dictionary entries, e.g. their category
+     */
+    private Map<String, Long> sumBySignature(List<Object[]> signatureCounts, Function<AlertSignature, String> attribute,
+                                             int limit) {
+        Map<String, Long> sums = new HashMap<>();
+        for (Object[] row : signatureCounts) {
+            AlertSignature signature = signatureDictionary.get((Long) row[0]);
+            sums.merge(signature != null ? Objects.toString(attribute.apply(signature), "") : "", (Long) row[1], Long::sum);
+        }
+        Map<String, Long> top = new LinkedHashMap<>();
+        sums.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(limit)
+                .forEach(e -> top.put(e.getKey(), e.getValue()));
+        return top;
+    }
+
+    @Override
+    public AlertDistinctCounts getDistinctCounts(LocalDateTime since, String signature, boolean exact) {
+        if (!exact && statisticsEngine.covers(since)) {
+            return statisticsEngine.getDistinctCounts(since, signature);
+        }
+        return countDistinct(since, LocalDateTime.now(ZoneOffset.UTC), signature);
+    }
+
+    @Override
+    public List<AlertDistinctCounts> getHourlyDistinctCounts(LocalDateTime since, String signature) {
+        if (statisticsEngine.covers(since)) {
+            return statisticsEngine.getHourlyDistinctCounts(since, signature);
+        }
+
+        // One COUNT(DISTINCT) per hour, only until the statistics engine is ready
+        List<AlertDistinctCounts> hours = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        for (LocalDateTime hour = since.truncatedTo(ChronoUnit.HOURS); hour.isBefore(now); hour = hour.plusHours(1)) {
+            hours.add(countDistinct(hour, hour.plusHours(1), signature));
+        }
+        return hours;
+    }
+
+    @Override
+    public AlertHistogram getHistogram(Duration interval, LocalDateTime since, LocalDateTime until,
+                                       AlertSeverity severity, String category) {
+        long step = interval.getSeconds();
+        if (step < 60 || step % 60 != 0) {
+            throw new IllegalArgumentException("Histogram interval must be a whole number of minutes: " + interval);
+        }
+        // Buckets are aligned on the epoch so that charts refreshed later line up
+        long from = Math.floorDiv(since.toEpochSecond(ZoneOffset.UTC), step) * step;
+        long bucketCount = Math.max(0, Math.ceilDiv(until.toEpochSecond(ZoneOffset.UTC) - from, step));
+        if (bucketCount > MAX_HISTOGRAM_BUCKETS) {
+            throw new IllegalArgumentException("Histogram would have more than " + MAX_HISTOGRAM_BUCKETS + " buckets");
+        }
+
+        List<AlertHistogram.Bucket> buckets = new ArrayList<>((int) bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            LocalDateTime start = LocalDateTime.ofEpochSecond(from + i * step, 0, ZoneOffset.UTC);
+            buckets.add(new AlertHistogram.Bucket(start, 0, new EnumMap<>(AlertSeverity.class)));
+        }
+        LocalDateTime start = LocalDateTime.ofEpochSecond(from, 0, ZoneOffset.UTC);
+        List<Object[]> rows = alertRollupRepository.sumByBucketStart(start, until, severity, category);
+        checkResolution(rows, step);
+        for (Object[] row : rows) {
+            long offset = ((LocalDateTime) row[0]).toEpochSecond(ZoneOffset.UTC) - from;
+            AlertHistogram.Bucket bucket = buckets.get((int) (offset / step));
+            long count = (Long) row[3];
+            bucket.setTotal(bucket.getTotal() + count);
+            bucket.getBySeverity().merge((AlertSeverity) row[2], count, Long::sum);
+        }
+        return new AlertHistogram(start, until, step, buckets);
+    }
+
+    /**
+     * Reject intervals that would split compacted rollups: an hourly or daily rollup has to
+     * fall within a single bucket, as its alerts can no longer be placed more precisely.
+     */
+    private static void checkResolution(List<Object[]> rows, long step) {
+        RollupResolution coarsest = null;
+        LocalDateTime end = null;
+        for (Object[] row : rows) {
+            RollupResolution resolution = (RollupResolution) row[1];
+            if (step % resolution.getDuration().getSeconds() == 0) {
+                continue;
+            }
+            LocalDateTime rowEnd = ((LocalDateTime) row[0]).plus(resolution.getDuration());
+            if (coarsest == null || resolution.compareTo(coarsest) > 0) {
+                coarsest = resolution;
+                end = rowEnd;
+            } else if (resolution == coarsest && rowEnd.isAfter(end)) {
+                end = rowEnd;
+            }
+        }
+        if (coarsest != null) {
+            String unit = coarsest.name().toLowerCase();
+            throw new IllegalArgumentException("Alerts until " + end + " are only kept per " + unit
+                    + ", use an interval that is a whole number of " + unit + "s");
+        }
+    }
+
+    private AlertDistinctCounts countDistinct(LocalDateTime start, LocalDateTime end, String signature) {
+        Object[] row = alertRepository.countDistinct(start, end, signature).get(0);
+        return new AlertDistinctCounts(start, end, signature, true, 0, (Long) row[0], (Long) row[1],
+                signature != null ? null : (Long) row[2]);
+    }
+
     @Override
     @Transactional
     public void processEveLog(String jsonLog) {
-        try {
-            JsonNode root = objectMapper.readTree(jsonLog);
+        processEveLogs(List.of(jsonLog));
+    }
 
-            // Check if this is an alert event
-            String eventType = root.path("event_type").asText();
-            if (!"alert".equals(eventType)) {
-                return;
+    @Override
+    @Transactional
+    public void processEveLogs(List<String> jsonLogs) {
+        List<Alert> alerts = new ArrayList<>(jsonLogs.size());
+        for (String jsonLog : jsonLogs) {
+            Alert alert = parseEveLog(jsonLog);
+            if (alert != null) {
+                alerts.add(alert);
             }
+        }
 
-            Alert alert = new Alert();
+        saveAlerts(alerts);
+    }
 
-            // Parse timestamp
-            String timestampStr = root.path("timestamp").asText();
-            if (!timestampStr.isEmpty()) {
-                try {
-                    ZonedDateTime zdt = ZonedDateTime.parse(timestampStr, DateTimeFormatter.ISO_DATE_TIME);
-                    alert.setTimestamp(zdt.toLocalDateTime());
-                } catch (Exception e) {
-                    alert.setTimestamp(LocalDateTime.now());
-                }
-            } else {
-                alert.setTimestamp(LocalDateTime.now());
+    @Override
+    @Transactional
+    public void saveAlerts(List<Alert> alerts) {
+        save(alerts, true);
+    }
+
+    @Override
+    @Transactional
+    public void saveArchivedAlerts(List<Alert> alerts) {
+        save(alerts, false);
+    }
+
+    private void save(List<Alert> alerts, boolean live) {
+        if (alerts.isEmpty()) {
+            return;
+        }
+
+        // Document ID is chosen up front so that retried index writes overwrite the same document
+        for (Alert alert : alerts) {
+            if (alert.getElasticsearchId() == null) {
+                alert.setElasticsearchId(UUID.randomUUID().toString());
             }
+        }
 
-            // Parse source and destination
-            alert.setSourceIp(root.path("src_ip").asText());
-            alert.setDestIp(root.path("dest_ip").asText());
-            alert.setSourcePort(root.path("src_port").asInt(0));
-            alert.setDestPort(root.path("dest_port").asInt(0));
-            alert.setProtocol(root.path("proto").asText());
-
-            // Parse alert details
-            JsonNode alertNode = root.path("alert");
-            alert.setSignature(alertNode.path("signature").asText());
-            alert.setCategory(alertNode.path("category").asText());
-            alert.setSignatureId(alertNode.path("signature_id").asLong());
-            alert.setGeneratorId(alertNode.path("gid").asLong());
-            alert.setAction(alertNode.path("action").asText());
-
-            // Determine severity based on signature or default to MEDIUM
-            int severityLevel = alertNode.path("severity").asInt(2);
-            alert.setSeverity(mapSeverity(severityLevel));
-
-            // Parse payload if available
-            if (root.has("payload")) {
-                alert.setPayload(root.path("payload").asText());
+        // Saving assigns IDs and moves payloads out, both undone if the batch is rolled back
+        List<String> payloads = alerts.stream().map(Alert::getPayload).toList();
+        afterRollback(() -> {
+            for (int i = 0; i < alerts.size(); i++) {
+                alerts.get(i).setId(null);
+                alerts.get(i).setPayload(payloads.get(i));
             }
+        });
 
-            // Try to correlate with existing devices
-            Optional<Device> device = deviceRepository.findByIpAddress(alert.getDestIp());
-            device.ifPresent(alert::setDevice);
-
-            // Save to database
-            Alert savedAlert = alertRepository.save(alert);
-            log.info("Saved alert: {} from {} to {}", savedAlert.getSignature(),
-                    savedAlert.getSourceIp(), savedAlert.getDestIp());
-
-            // Index in Elasticsearch
-            try {
-                String esId = elasticsearchService.indexAlert(savedAlert);
-                if (esId != null) {
-                    savedAlert.setElasticsearchId(esId);
-                    alertRepository.save(savedAlert);
-                }
-            } catch (Exception e) {
-                log.warn("Failed to index alert in Elasticsearch", e);
+        // Try to correlate with known devices from the in-memory index
+        for (Alert alert : alerts) {
+            Device device = deviceCorrelationIndex.find(alert.getDestIp());
+            if (device != null) {
+                alert.setDevice(device);
             }
+        }
 
-        } catch (Exception e) {
-            log.error("Error processing EVE log: {}", jsonLog, e);
+        signatureDictionary.resolve(alerts);
+
+        // Save to database in one batch, flushing here so the timing covers the inserts
+        long start = System.nanoTime();
+        List<Alert> savedAlerts = alertRepository.saveAll(alerts);
+        payloadStore.store(savedAlerts);
+        indexOutbox.enqueue(savedAlerts);
+        alertRepository.flush();
+        metrics.stored(savedAlerts, System.nanoTime() - start);
+        log.debug("Saved {} alerts", savedAlerts.size());
+
+        afterCommit(() -> {
+            statisticsEngine.record(savedAlerts);
+            alertRollupWriter.record(savedAlerts);
+            if (live) {
+                recentAlerts.add(savedAlerts);
+                ingestWatermark.advance();
+                eventPublisher.publishEvent(new AlertsIngestedEvent(savedAlerts));
+            } else {
+                recentAlerts.missed();
+            }
+        });
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
         }
     }
 
-    @Override
-    @Transactional
-    public void processEveLogs(List<String> jsonLogs) {
-        jsonLogs.forEach(this::processEveLog);
+    private void afterRollback(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        action.run();
+                    }
+                }
+            });
+        }
     }
 
-    private AlertSeverity mapSeverity(int suricataSeverity) {
-        // Suricata severity: 1 = high, 2 = medium, 3 = low
-        return switch (suricataSeverity) {
-            case 1 -> AlertSeverity.HIGH;
-            case 2 -> AlertSeverity.MEDIUM;
-            case 3 -> AlertSeverity.LOW;
-            default -> AlertSeverity.MEDIUM;
-        };
+    private static String encodeCursor(AlertView alert) {
+        String position = alert.timestamp() + "," + alert.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Alert decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int comma = position.indexOf(',');
+            Alert alert = new Alert();
+            alert.setTimestamp(LocalDateTime.parse(position.substring(0, comma)));
+            alert.setId(Long.parseLong(position.substring(comma + 1)));
+            return alert;
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    private Alert parseEveLog(String jsonLog) {
+        try {
+            return eveLogParser.parse(jsonLog);
+        } catch (Exception e) {
+            log.error("Error processing EVE log: {}", jsonLog, e);
+            return null;
+        }
     }
 }
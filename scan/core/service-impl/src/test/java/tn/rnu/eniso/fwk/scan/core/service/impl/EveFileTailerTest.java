@@ -0,0 +1,226 @@
+package tn.rnu.eniso.fwk.scan.core.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class EveFileTailerTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @TempDir
+    Path dir;
+
+    // Lines handed to the pipeline, each committed as soon as it arrives
+    private final List<String> lines = new ArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private final List<EveFileTailer> tailers = new ArrayList<>();
+
+    @AfterEach
+    void stopTailers() throws InterruptedException {
+        tailers.forEach(EveFileTailer::stop);
+        for (Thread thread : threads) {
+            thread.join(TIMEOUT_MILLIS);
+        }
+    }
+
+    @Test
+    void followsAppendedLines() throws Exception {
+        Path eve = dir.resolve("eve.json");
+        write(eve, "a1\n", "a2\n");
+        start(eve);
+        awaitLines("a1", "a2");
+
+        // A line longer than the buffer, and one written in two parts
+        String longLine = "x".repeat(200);
+        write(eve, longLine + "\n", "a3");
+        Thread.sleep(50);
+        write(eve, "-end\r\n");
+        awaitLines("a1", "a2", longLine, "a3-end");
+    }
+
+    @Test
+    void drainsTheOldFileAfterRenameRotation() throws Exception {
+        Path eve = dir.resolve("eve.json");
+        write(eve, "a1\n", "a2\n");
+        start(eve);
+        awaitLines("a1", "a2");
+
+        // The last record of the rotated file has no trailing newline
+        write(eve, "a3\n", "a4");
+        Files.move(eve, dir.resolve("eve.json.1"));
+        write(eve, "b1\n", "b2\n");
+        awaitLines("a1", "a2", "a3", "a4", "b1", "b2");
+    }
+
+    @Test
+    void drainsTheCopyAfterCopytruncate() throws Exception {
+        Path eve = dir.resolve("eve.json");
+        write(eve, "first-line-a1\n", "first-line-a2\n");
+        start(eve);
+        awaitLines("first-line-a1", "first-line-a2");
+
+        write(eve, "first-line-a3\n");
+        Files.copy(eve, dir.resolve("eve.json.1"));
+        Files.write(eve, new byte[0], StandardOpenOption.TRUNCATE_EXISTING);
+        write(eve, "b1\n");
+        awaitLines("first-line-a1", "first-line-a2", "first-line-a3", "b1");
+    }
+
+    @Test
+    void resumesAtTheCheckpointedOffset() throws Exception {
+        Path eve = dir.resolve("eve.json");
+        write(eve, "a1\n", "a2\n");
+        EveFileTailer first = start(eve);
+        awaitLines("a1", "a2");
+        stop(first);
+
+        write(eve, "a3\n");
+        lines.clear();
+        start(eve);
+        awaitLines("a3");
+    }
+
+    @Test
+    void resumesOnTheRenamedFileAfterRotationWhileStopped() throws Exception {
+        Path eve = dir.resolve("eve.json");
+        write(eve, "a1\n", "a2\n");
+        EveFileTailer first = start(eve);
+        awaitLines("a1", "a2");
+        stop(first);
+
+        // Rotated while stopped: the checkpointed file now lives under another name
+        write(eve, "a3\n", "a4\n");
+        Files.move(eve, dir.resolve("eve.json.1"));
+        // An equally recent sibling that is not the checkpointed file
+        write(dir.resolve("eve.json.2"), "other\n");
+        Files.setLastModifiedTime(dir.resolve("eve.json.2"), Files.getLastModifiedTime(dir.resolve("eve.json.1")));
+        write(eve, "b1\n");
+        lines.clear();
+        start(eve);
+        awaitLines("a3", "a4", "b1");
+    }
+
+    @Test
+    void resumesOnTheCopyAfterCopytruncateWhileStopped() throws Exception {
+        Path eve = dir.resolve("eve.json");
+        write(eve, "first-line-a1\n", "first-line-a2\n");
+        EveFileTailer first = start(eve);
+        awaitLines("first-line-a1", "first-line-a2");
+        stop(first);
+
+        write(eve, "first-line-a3\n");
+        Files.copy(eve, dir.resolve("eve.json.1"));
+        Files.write(eve, "b1\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.TRUNCATE_EXISTING);
+        lines.clear();
+        start(eve);
+        awaitLines("first-line-a3", "b1");
+    }
+
+    @Test
+    void drainsTheCopyWhenTheTruncatedFileGrewPastTheOffset() throws Exception {
+        Path eve = dir.resolve("eve.json");
+        write(eve, "first-line-a1\n", "first-line-a2\n", "first-line-a3\n");
+        // Stopped while a2 and a3 were read but not yet written
+        writeCheckpoint(EveFileTailer.fileKey(eve), 14, 42);
+
+        Files.copy(eve, dir.resolve("eve.json.1"));
+        Files.write(eve, "b1\nb2-longer-line\nb3\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.TRUNCATE_EXISTING);
+        start(eve);
+        awaitLines("first-line-a2", "first-line-a3", "b1", "b2-longer-line", "b3");
+    }
+
+    @Test
+    void resumesACheckpointWithoutFileKeyBySize() throws Exception {
+        Path eve = dir.resolve("eve.json");
+        write(eve, "first-line-a1\n", "first-line-a2\n");
+        writeCheckpoint(null, 14, -1);
+
+        start(eve);
+        awaitLines("first-line-a2");
+        write(eve, "first-line-a3\n");
+        awaitLines("first-line-a2", "first-line-a3");
+    }
+
+    private EveFileTailer start(Path eve) throws InterruptedException {
+        SuricataIngestPipeline pipeline = mock(SuricataIngestPipeline.class);
+        doAnswer(invocation -> {
+            synchronized (lines) {
+                lines.add(invocation.getArgument(0));
+            }
+            SuricataIngestPipeline.Source source = invocation.getArgument(2);
+            source.committed(invocation.getArgument(3), invocation.getArgument(4), 1);
+            return null;
+        }).when(pipeline).submit(anyString(), anyString(), any(), anyString(), anyLong());
+
+        // Checkpoint outside the log directory, so it is never taken for a rotated file
+        EveFileTailer tailer = new EveFileTailer(eve, "sensor", checkpoint(), pipeline, 64, 10, 1, false);
+        Thread thread = new Thread(tailer, "tailer-test");
+        thread.start();
+        tailers.add(tailer);
+        threads.add(thread);
+        return tailer;
+    }
+
+    private void writeCheckpoint(String fileKey, long offset, long size) throws IOException {
+        Properties properties = new Properties();
+        if (fileKey != null) {
+            properties.setProperty("fileKey", fileKey);
+        }
+        properties.setProperty("offset", Long.toString(offset));
+        if (size >= 0) {
+            properties.setProperty("size", Long.toString(size));
+        }
+        Files.createDirectories(checkpoint().getParent());
+        try (OutputStream out = Files.newOutputStream(checkpoint())) {
+            properties.store(out, null);
+        }
+    }
+
+    private Path checkpoint() {
+        return dir.resolve("state").resolve("eve.checkpoint");
+    }
+
+    private void stop(EveFileTailer tailer) throws InterruptedException {
+        int index = tailers.indexOf(tailer);
+        tailer.stop();
+        threads.get(index).join(TIMEOUT_MILLIS);
+        assertFalse(threads.get(index).isAlive());
+    }
+
+    private void awaitLines(String... expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            synchronized (lines) {
+                if (lines.size() >= expected.length) {
+                    break;
+                }
+            }
+            Thread.sleep(10);
+        }
+        // Give the tailer the chance to emit anything twice
+        Thread.sleep(100);
+        synchronized (lines) {
+            assertEquals(List.of(expected), lines);
+        }
+    }
+
+    private static void write(Path file, String... parts) throws IOException {
+        Files.writeString(file, String.join("", parts), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+}
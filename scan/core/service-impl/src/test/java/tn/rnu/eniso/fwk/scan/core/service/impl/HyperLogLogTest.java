@@ -0,0 +1,86 @@
+package tn.rnu.eniso.fwk.scan.core.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HyperLogLogTest {
+
+    @Test
+    void rejectsPrecisionOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(3));
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(19));
+    }
+
+    @Test
+    void countsSmallSetsExactlyAndIgnoresDuplicates() {
+        HyperLogLog sketch = new HyperLogLog(14);
+        assertEquals(0, sketch.estimate());
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 20; i++) {
+                sketch.add("10.0.0." + i);
+            }
+        }
+        sketch.add(null);
+        assertEquals(20, sketch.estimate());
+        assertTrue(sketch.isSparse());
+    }
+
+    @Test
+    void switchesToDenseRegistersWithoutLosingTheCount() {
+        HyperLogLog sketch = new HyperLogLog(10);
+        int switchedAt = -1;
+        for (int i = 1; i <= 5000; i++) {
+            sketch.add("host-" + i);
+            if (switchedAt < 0 && !sketch.isSparse()) {
+                switchedAt = i;
+            }
+            assertWithin(i, sketch.estimate(), 10);
+        }
+        // At most a quarter of the 1024 registers are held sparse
+        assertTrue(switchedAt > 256 && switchedAt < 400, "switched at " + switchedAt);
+        assertFalse(sketch.isSparse());
+    }
+
+    @Test
+    void estimatesLargeSetsWithinTheStandardError() {
+        HyperLogLog sketch = new HyperLogLog(14);
+        for (int i = 0; i < 200_000; i++) {
+            sketch.add("192.168." + (i >>> 8 & 0xFF) + "." + (i & 0xFF) + ":" + (i >>> 16));
+        }
+        assertWithin(200_000, sketch.estimate(), 14);
+    }
+
+    @Test
+    void mergeMatchesTheUnionInEveryLayout() {
+        // Sparse into sparse, dense into sparse, sparse into dense and dense into dense
+        int[][] sizes = {{50, 80}, {50, 3000}, {3000, 50}, {3000, 4000}};
+        for (int[] size : sizes) {
+            HyperLogLog first = new HyperLogLog(10);
+            HyperLogLog second = new HyperLogLog(10);
+            HyperLogLog union = new HyperLogLog(10);
+            // Overlapping halves, so that the merge must keep the larger register
+            for (int i = 0; i < size[0]; i++) {
+                first.add("a" + i);
+                union.add("a" + i);
+            }
+            for (int i = size[0] / 2; i < size[0] / 2 + size[1]; i++) {
+                second.add("a" + i);
+                union.add("a" + i);
+            }
+            first.merge(second);
+            assertEquals(union.estimate(), first.estimate(), size[0] + "+" + size[1]);
+            assertEquals(union.isSparse(), first.isSparse(), size[0] + "+" + size[1]);
+        }
+    }
+
+    @Test
+    void mergeRequiresTheSamePrecision() {
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(10).merge(new HyperLogLog(12)));
+    }
+
+    private static void assertWithin(long expected, long estimate, int precision) {
+        double tolerance = 4 * HyperLogLog.relativeError(precision) * expected + 1;
+        assertTrue(Math.abs(estimate - expected) <= tolerance, estimate + " for " + expected);
+    }
+}
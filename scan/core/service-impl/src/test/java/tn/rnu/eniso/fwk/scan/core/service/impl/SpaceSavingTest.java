@@ -0,0 +1,117 @@
+package tn.rnu.eniso.fwk.scan.core.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceSavingTest {
+
+    @Test
+    void exactBelowCapacity() {
+        SpaceSaving summary = new SpaceSaving(4);
+        summary.add("a", 3);
+        summary.add("b", 1);
+        summary.add("a", 2);
+        summary.add(null, 5);
+
+        List<SpaceSaving.Estimate> top = merge(summary).top(10);
+        assertEquals(List.of(new SpaceSaving.Estimate("a", 5, 0), new SpaceSaving.Estimate("b", 1, 0)), top);
+        assertEquals(0, summary.floor());
+    }
+
+    @Test
+    void evictionInheritsTheMinimumAsError() {
+        SpaceSaving summary = new SpaceSaving(2);
+        summary.add("a", 5);
+        summary.add("b", 2);
+        summary.add("c", 1);
+
+        // c replaced b, the minimum, and may have occurred up to b's count before
+        List<SpaceSaving.Estimate> top = merge(summary).top(10);
+        assertEquals(List.of(new SpaceSaving.Estimate("a", 5, 0), new SpaceSaving.Estimate("c", 3, 2)), top);
+        assertEquals(3, summary.floor());
+    }
+
+    @Test
+    void estimatesStayWithinTheirErrorBounds() {
+        Map<String, Long> truth = new HashMap<>();
+        SpaceSaving summary = new SpaceSaving(16);
+        feed(summary, truth, new Random(42), 20_000, 0);
+
+        SpaceSaving.Merged merged = merge(summary);
+        assertBounds(merged, truth);
+    }
+
+    @Test
+    void mergedEstimatesStayWithinTheirErrorBounds() {
+        Map<String, Long> truth = new HashMap<>();
+        SpaceSaving first = new SpaceSaving(16);
+        SpaceSaving second = new SpaceSaving(16);
+        Random random = new Random(7);
+        feed(first, truth, random, 10_000, 0);
+        // Shifted key space, so that the summaries share only part of their keys
+        feed(second, truth, random, 10_000, 5);
+
+        SpaceSaving.Merged merged = new SpaceSaving.Merged();
+        merged.merge(first);
+        merged.merge(second);
+        assertEquals(first.floor() + second.floor(), merged.maxError());
+        assertBounds(merged, truth);
+    }
+
+    @Test
+    void mergeOfDisjointSummariesWithoutEvictionIsExact() {
+        SpaceSaving first = new SpaceSaving(4);
+        SpaceSaving second = new SpaceSaving(4);
+        first.add("a", 2);
+        first.add("b", 1);
+        second.add("a", 3);
+        second.add("c", 4);
+
+        SpaceSaving.Merged merged = new SpaceSaving.Merged();
+        merged.merge(first);
+        merged.merge(second);
+        assertEquals(0, merged.maxError());
+        assertEquals(List.of(new SpaceSaving.Estimate("a", 5, 0), new SpaceSaving.Estimate("c", 4, 0)), merged.top(2));
+    }
+
+    /**
+     * Skewed stream over keys k0..k199, k{offset} the most frequent
+     */
+    private static void feed(SpaceSaving summary, Map<String, Long> truth, Random random, int events, int offset) {
+        for (int i = 0; i < events; i++) {
+            int rank = (int) Math.min(199, Math.floor(Math.exp(random.nextDouble() * Math.log(200))) - 1);
+            String key = "k" + (rank + offset);
+            long weight = 1 + random.nextInt(3);
+            summary.add(key, weight);
+            truth.merge(key, weight, Long::sum);
+        }
+    }
+
+    private static void assertBounds(SpaceSaving.Merged merged, Map<String, Long> truth) {
+        List<SpaceSaving.Estimate> top = merged.top(Integer.MAX_VALUE);
+        for (SpaceSaving.Estimate estimate : top) {
+            long actual = truth.getOrDefault(estimate.key(), 0L);
+            assertTrue(estimate.count() >= actual, estimate + " below " + actual);
+            assertTrue(estimate.count() - estimate.error() <= actual, estimate + " guarantees more than " + actual);
+            assertTrue(estimate.error() <= merged.maxError(), estimate + " over " + merged.maxError());
+        }
+        // Any key occurring more often than the error bound must be listed
+        truth.forEach((key, count) -> {
+            if (count > merged.maxError()) {
+                assertTrue(top.stream().anyMatch(e -> e.key().equals(key)), key + " missing with " + count);
+            }
+        });
+    }
+
+    private static SpaceSaving.Merged merge(SpaceSaving summary) {
+        SpaceSaving.Merged merged = new SpaceSaving.Merged();
+        merged.merge(summary);
+        return merged;
+    }
+}
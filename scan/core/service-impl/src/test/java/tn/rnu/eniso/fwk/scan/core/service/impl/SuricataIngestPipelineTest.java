@@ -0,0 +1,33 @@
+package tn.rnu.eniso.fwk.scan.core.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuricataIngestPipelineTest {
+
+    @Test
+    void retriesUnavailableOrBusyDatabases() {
+        assertTrue(SuricataIngestPipeline.isTransient(new CannotCreateTransactionException("no connection")));
+        assertTrue(SuricataIngestPipeline.isTransient(new CannotAcquireLockException("lock timeout")));
+        assertTrue(SuricataIngestPipeline.isTransient(
+                new RuntimeException(new SQLTransientConnectionException("pool exhausted"))));
+        assertTrue(SuricataIngestPipeline.isTransient(new RuntimeException(new SQLException("closed", "08006"))));
+        assertTrue(SuricataIngestPipeline.isTransient(new RuntimeException(new SQLException("deadlock", "40001"))));
+    }
+
+    @Test
+    void doesNotRetryRejectedData() {
+        assertFalse(SuricataIngestPipeline.isTransient(new DataIntegrityViolationException("duplicate",
+                new SQLIntegrityConstraintViolationException("duplicate", "23505"))));
+        assertFalse(SuricataIngestPipeline.isTransient(new RuntimeException(new SQLException("too long", "22001"))));
+        assertFalse(SuricataIngestPipeline.isTransient(new IllegalStateException("bad alert")));
+    }
+}
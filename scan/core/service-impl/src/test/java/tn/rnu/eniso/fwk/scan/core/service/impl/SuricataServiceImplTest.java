@@ -0,0 +1,76 @@
+package tn.rnu.eniso.fwk.scan.core.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tn.rnu.eniso.fwk.scan.core.dal.repository.AlertRollupRepository;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertHistogram;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertSeverity;
+import tn.rnu.eniso.fwk.scan.core.infra.model.RollupResolution;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SuricataServiceImplTest {
+
+    // Minute rollups are kept from 12:00 on, older ones were compacted into hours
+    private static final LocalDateTime SINCE = LocalDateTime.of(2024, 1, 1, 10, 0);
+    private static final LocalDateTime UNTIL = LocalDateTime.of(2024, 1, 1, 14, 0);
+
+    @Mock
+    private AlertRollupRepository alertRollupRepository;
+
+    @InjectMocks
+    private SuricataServiceImpl suricataService;
+
+    @Test
+    void countsCompactedHoursInTheirOwnBucket() {
+        when(alertRollupRepository.sumByBucketStart(any(), any(), any(), any())).thenReturn(List.of(
+                row(SINCE, RollupResolution.HOUR, AlertSeverity.HIGH, 60),
+                row(SINCE.plusHours(1), RollupResolution.HOUR, AlertSeverity.LOW, 30),
+                row(SINCE.plusHours(2), RollupResolution.MINUTE, AlertSeverity.HIGH, 4),
+                row(SINCE.plusHours(2).plusMinutes(59), RollupResolution.MINUTE, AlertSeverity.HIGH, 1),
+                row(SINCE.plusHours(3).plusMinutes(30), RollupResolution.MINUTE, AlertSeverity.LOW, 2)));
+
+        AlertHistogram histogram = suricataService.getHistogram(Duration.ofHours(1), SINCE, UNTIL, null, null);
+
+        assertEquals(List.of(60L, 30L, 5L, 2L), histogram.getBuckets().stream().map(AlertHistogram.Bucket::getTotal).toList());
+        assertEquals(30L, histogram.getBuckets().get(1).getBySeverity().get(AlertSeverity.LOW));
+    }
+
+    @Test
+    void rejectsIntervalsFinerThanCompactedRollups() {
+        when(alertRollupRepository.sumByBucketStart(any(), any(), any(), any())).thenReturn(List.of(
+                row(SINCE, RollupResolution.HOUR, AlertSeverity.HIGH, 60),
+                row(SINCE.plusHours(1), RollupResolution.HOUR, AlertSeverity.LOW, 30),
+                row(SINCE.plusHours(2), RollupResolution.MINUTE, AlertSeverity.HIGH, 4)));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> suricataService.getHistogram(Duration.ofMinutes(5), SINCE, UNTIL, null, null));
+        assertTrue(e.getMessage().contains("2024-01-01T12:00"), e.getMessage());
+        assertThrows(IllegalArgumentException.class,
+                () -> suricataService.getHistogram(Duration.ofMinutes(90), SINCE, UNTIL, null, null));
+    }
+
+    @Test
+    void acceptsFineIntervalsOverMinuteRollups() {
+        when(alertRollupRepository.sumByBucketStart(any(), any(), any(), any())).thenReturn(List.<Object[]>of(
+                row(SINCE.plusHours(2).plusMinutes(7), RollupResolution.MINUTE, AlertSeverity.HIGH, 4)));
+
+        AlertHistogram histogram = suricataService.getHistogram(Duration.ofMinutes(5), SINCE.plusHours(2), UNTIL, null, null);
+
+        assertEquals(4L, histogram.getBuckets().get(1).getTotal());
+    }
+
+    private static Object[] row(LocalDateTime bucketStart, RollupResolution resolution, AlertSeverity severity, long count) {
+        return new Object[]{bucketStart, resolution, severity, count};
+    }
+}
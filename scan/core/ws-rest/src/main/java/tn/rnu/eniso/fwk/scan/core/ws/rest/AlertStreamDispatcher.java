@@ -0,0 +1,336 @@
+package tn.rnu.eniso.fwk.scan.core.ws.rest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tn.rnu.eniso.fwk.scan.core.infra.model.Alert;
+import tn.rnu.eniso.fwk.scan.core.service.api.AlertsIngestedEvent;
+import tn.rnu.eniso.fwk.scan.core.service.impl.SuricataMetrics;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans committed alerts out to SSE subscribers. The ingest thread only filters and
+ * enqueues: each subscriber has a bounded queue drained by its own virtual thread, so a
+ * slow client never holds up ingest or other clients. An alert is serialized at most
+ * once, by the first sender that needs it, and its JSON is shared by every subscriber.
+ * <p>
+ * Subscribers get one {@code alert} event per alert, or with a batch interval
+ * {@code alerts} frames holding up to the batch size. Alerts a subscriber cannot take are
+ * reported as a {@code summary} event counting them per signature: those skipped by the
+ * {@link OverflowPolicy} when the queue is full and, in batched mode, the backlog left
+ * when more than a frame is still waiting after one was sent.
+ */
+@Component
+@Slf4j
+public class AlertStreamDispatcher {
+
+    /**
+     * What to do with an alert for a subscriber whose queue is full
+     */
+    public enum OverflowPolicy {
+        DROP_OLDEST,
+        DROP_NEWEST,
+        DISCONNECT
+    }
+
+    @Value("${suricata.stream.buffer-size:1000}")
+    private int bufferSize;
+
+    @Value("${suricata.stream.max-subscribers:100}")
+    private int maxSubscribers;
+
+    @Value("${suricata.stream.heartbeat-interval:15000}")
+    private long heartbeatInterval;
+
+    private final SuricataMetrics metrics;
+    private final ObjectWriter writer;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong nextId = new AtomicLong();
+    // Reserved before a subscriber is added, so concurrent subscribes cannot exceed the limit
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    public AlertStreamDispatcher(SuricataMetrics metrics, ObjectMapper objectMapper) {
+        this.metrics = metrics;
+        this.writer = objectMapper.writerFor(Alert.class);
+        metrics.registerStreamSubscribers(subscribers);
+    }
+
+    /**
+     * @param batchInterval milliseconds to gather alerts into one frame, 0 for an event per alert
+     * @param batchSize     maximum alerts per frame
+     * @throws IllegalArgumentException on invalid batching parameters
+     * @throws IllegalStateException    when the subscriber limit is reached
+     */
+    public SseEmitter subscribe(AlertStreamFilter filter, OverflowPolicy policy, long batchInterval, int batchSize) {
+        if (batchInterval < 0 || batchSize < 1) {
+            throw new IllegalArgumentException("Invalid batching: interval " + batchInterval + ", size " + batchSize);
+        }
+        SseEmitter emitter = new SseEmitter(Long.MAX_VALUE);
+        Subscriber subscriber = new Subscriber(nextId.incrementAndGet(), emitter, filter, policy,
+                TimeUnit.MILLISECONDS.toNanos(batchInterval), Math.min(batchSize, bufferSize));
+        reserveSlot();
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        subscribers.add(subscriber);
+        subscriber.sender = Thread.ofVirtual().name("alert-stream-" + subscriber.id).start(subscriber::run);
+        return emitter;
+    }
+
+    /**
+     * Take a subscriber slot, released when the subscriber is removed
+     */
+    private void reserveSlot() {
+        int count;
+        do {
+            count = subscriberCount.get();
+            if (count >= maxSubscribers) {
+                throw new IllegalStateException("Too many alert stream subscribers");
+            }
+        } while (!subscriberCount.compareAndSet(count, count + 1));
+    }
+
+    @EventListener
+    public void onAlertsIngested(AlertsIngestedEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        List<StreamedAlert> alerts = new ArrayList<>(event.alerts().size());
+        for (Alert alert : event.alerts()) {
+            alerts.add(new StreamedAlert(alert));
+        }
+        for (Subscriber subscriber : subscribers) {
+            for (StreamedAlert alert : alerts) {
+                if (subscriber.filter.matches(alert.alert)) {
+                    subscriber.offer(alert);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(Subscriber::close);
+    }
+
+    /**
+     * Alert with its JSON, written on first use
+     */
+    private final class StreamedAlert {
+
+        final Alert alert;
+        private volatile String json;
+
+        StreamedAlert(Alert alert) {
+            this.alert = alert;
+        }
+
+        String json() throws JsonProcessingException {
+            String value = json;
+            if (value == null) {
+                synchronized (this) {
+                    value = json;
+                    if (value == null) {
+                        value = writer.writeValueAsString(alert);
+                        json = value;
+                    }
+                }
+            }
+            return value;
+        }
+
+        SignatureKey signature() {
+            return new SignatureKey(alert.getSignatureId(), alert.getSignature());
+        }
+    }
+
+    private record SignatureKey(Long signatureId, String signature) {
+    }
+
+    public record SignatureCount(Long signatureId, String signature, long count) {
+    }
+
+    /**
+     * Alerts a subscriber did not receive in full
+     */
+    public record Summary(long count, List<SignatureCount> signatures) {
+    }
+
+    private final class Subscriber {
+
+        final long id;
+        final SseEmitter emitter;
+        final AlertStreamFilter filter;
+        final OverflowPolicy policy;
+        final long batchNanos;
+        final int batchSize;
+        final BlockingQueue<StreamedAlert> queue;
+        // Written by the ingest thread on overflow and by the sender for the backlog
+        final Map<SignatureKey, Long> skipped = new ConcurrentHashMap<>();
+        volatile Thread sender;
+        volatile boolean closed;
+
+        Subscriber(long id, SseEmitter emitter, AlertStreamFilter filter, OverflowPolicy policy,
+                   long batchNanos, int batchSize) {
+            this.id = id;
+            this.emitter = emitter;
+            this.filter = filter;
+            this.policy = policy;
+            this.batchNanos = batchNanos;
+            this.batchSize = batchSize;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        void offer(StreamedAlert alert) {
+            if (closed || queue.offer(alert)) {
+                return;
+            }
+            switch (policy) {
+                case DROP_NEWEST -> skip(alert, policy.name());
+                case DROP_OLDEST -> {
+                    while (!queue.offer(alert)) {
+                        StreamedAlert oldest = queue.poll();
+                        if (oldest != null) {
+                            skip(oldest, policy.name());
+                        }
+                    }
+                }
+                case DISCONNECT -> {
+                    log.info("Disconnecting alert stream subscriber {}: {} alerts behind", id, queue.size());
+                    metrics.streamDropped(policy.name(), queue.size() + 1);
+                    close();
+                }
+            }
+        }
+
+        void run() {
+            List<StreamedAlert> frame = new ArrayList<>(batchSize);
+            try {
+                // Commits the response headers so the client sees the stream open at once
+                emitter.send(SseEmitter.event().comment("subscribed"));
+                while (!closed) {
+                    StreamedAlert first = queue.poll(heartbeatInterval, TimeUnit.MILLISECONDS);
+                    boolean summarized = sendSummary();
+                    if (first == null) {
+                        if (!summarized) {
+                            // Keeps proxies from timing out idle streams and detects gone clients
+                            emitter.send(SseEmitter.event().comment("keep-alive"));
+                        }
+                    } else if (batchNanos == 0) {
+                        emitter.send(SseEmitter.event().name("alert").data(first.json(), MediaType.APPLICATION_JSON));
+                    } else {
+                        frame.add(first);
+                        fillFrame(frame);
+                        emitter.send(SseEmitter.event().name("alerts").data(toJson(frame), MediaType.APPLICATION_JSON));
+                        frame.clear();
+                        // More than a frame still waiting: the client cannot keep up, summarize the backlog
+                        if (queue.size() > batchSize) {
+                            List<StreamedAlert> backlog = new ArrayList<>(queue.size());
+                            queue.drainTo(backlog);
+                            backlog.forEach(alert -> skip(alert, "COALESCE"));
+                            sendSummary();
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.debug("Alert stream subscriber {} disconnected: {}", id, e.getMessage());
+            } finally {
+                close();
+                emitter.complete();
+            }
+        }
+
+        /**
+         * Take alerts until the frame is full or the batch interval since its first alert ends
+         */
+        private void fillFrame(List<StreamedAlert> frame) throws InterruptedException {
+            long deadline = System.nanoTime() + batchNanos;
+            while (frame.size() < batchSize) {
+                if (queue.drainTo(frame, batchSize - frame.size()) > 0) {
+                    continue;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return;
+                }
+                StreamedAlert next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                if (next == null) {
+                    return;
+                }
+                frame.add(next);
+            }
+        }
+
+        private String toJson(List<StreamedAlert> frame) throws JsonProcessingException {
+            StringBuilder json = new StringBuilder(frame.size() * 512).append('[');
+            for (int i = 0; i < frame.size(); i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                json.append(frame.get(i).json());
+            }
+            return json.append(']').toString();
+        }
+
+        private boolean sendSummary() throws IOException {
+            if (skipped.isEmpty()) {
+                return false;
+            }
+            // A key may be added again while iterating, so merge what is taken
+            Map<SignatureKey, Long> taken = new HashMap<>();
+            for (SignatureKey key : skipped.keySet()) {
+                Long count = skipped.remove(key);
+                if (count != null) {
+                    taken.merge(key, count, Long::sum);
+                }
+            }
+            List<SignatureCount> signatures = new ArrayList<>(taken.size());
+            long total = 0;
+            for (Map.Entry<SignatureKey, Long> entry : taken.entrySet()) {
+                signatures.add(new SignatureCount(entry.getKey().signatureId(), entry.getKey().signature(), entry.getValue()));
+                total += entry.getValue();
+            }
+            signatures.sort(Comparator.comparingLong(SignatureCount::count).reversed());
+            emitter.send(SseEmitter.event().name("summary").data(new Summary(total, signatures), MediaType.APPLICATION_JSON));
+            return true;
+        }
+
+        private void skip(StreamedAlert alert, String reason) {
+            skipped.merge(alert.signature(), 1L, Long::sum);
+            metrics.streamDropped(reason, 1);
+        }
+
+        void close() {
+            closed = true;
+            if (subscribers.remove(this)) {
+                subscriberCount.decrementAndGet();
+            }
+            Thread thread = sender;
+            if (thread != null && thread != Thread.currentThread()) {
+                thread.interrupt();
+            }
+        }
+    }
+}
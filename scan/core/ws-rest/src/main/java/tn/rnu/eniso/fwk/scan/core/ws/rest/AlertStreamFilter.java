@@ -0,0 +1,23 @@
+package tn.rnu.eniso.fwk.scan.core.ws.rest;
+
+import tn.rnu.eniso.fwk.scan.core.infra.model.Alert;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertSeverity;
+import tn.rnu.eniso.fwk.scan.core.infra.util.CidrBlock;
+
+/**
+ * Server-side filter of an alert stream subscription; null criteria match everything.
+ * The network matches alerts whose source or destination lies in it.
+ */
+public record AlertStreamFilter(AlertSeverity minSeverity, CidrBlock network, String category) {
+
+    public boolean matches(Alert alert) {
+        if (minSeverity != null
+                && (alert.getSeverity() == null || alert.getSeverity().getLevel() < minSeverity.getLevel())) {
+            return false;
+        }
+        if (category != null && !category.equalsIgnoreCase(alert.getCategory())) {
+            return false;
+        }
+        return network == null || network.contains(alert.getSourceIp()) || network.contains(alert.getDestIp());
+    }
+}
@@ -40,4 +40,16 @@ public class NmapController {
         List<Device> devices = nmapService.getDevices(id);
         return ResponseEntity.ok(devices);
     }
+
+    @GetMapping({"/devices/cidr/{address}", "/devices/cidr/{address}/{prefixLength}"})
+    public ResponseEntity<List<Device>> getDevicesInNetwork(
+            @PathVariable String address,
+            @PathVariable(required = false) Integer prefixLength) {
+        try {
+            String cidr = prefixLength != null ? address + "/" + prefixLength : address;
+            return ResponseEntity.ok(nmapService.getDevicesInNetwork(cidr));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
 }
@@ -1,111 +1,287 @@
 package tn.rnu.eniso.fwk.scan.core.ws.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import tn.rnu.eniso.fwk.scan.core.infra.model.Alert;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertCursorPage;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertDimension;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertDistinctCounts;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertHistogram;
 import tn.rnu.eniso.fwk.scan.core.infra.model.AlertSeverity;
 import tn.rnu.eniso.fwk.scan.core.infra.model.AlertStatistics;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertTopK;
+import tn.rnu.eniso.fwk.scan.core.infra.model.AlertView;
+import tn.rnu.eniso.fwk.scan.core.infra.util.CidrBlock;
 import tn.rnu.eniso.fwk.scan.core.service.api.SuricataService;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
+/**
+ * Times in requests and responses are UTC, like alert timestamps. Time ranges include their
+ * start and exclude their end.
+ */
 @RestController
 @RequestMapping("/api/suricata")
 @RequiredArgsConstructor
 @CrossOrigin(origins = "*")
 public class SuricataController {
 
-    private final SuricataService suricataService;
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
 
-    // Store SSE emitters for real-time alert streaming
-    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    private final SuricataService suricataService;
+    private final ObjectMapper objectMapper;
+    private final AlertStreamDispatcher streamDispatcher;
 
     @GetMapping("/alerts")
-    public ResponseEntity<Page<Alert>> getAlerts(
+    public ResponseEntity<Page<AlertView>> getAlerts(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
-        Page<Alert> alerts = suricataService.getAlerts(PageRequest.of(page, size));
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeDevice) {
+        Page<AlertView> alerts = suricataService.getAlerts(PageRequest.of(page, size), includeDevice);
         return ResponseEntity.ok(alerts);
     }
 
+    /**
+     * Keyset pagination: pass the returned nextCursor to get the following page
+     */
+    @GetMapping("/alerts/cursor")
+    public ResponseEntity<AlertCursorPage> getAlertsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) AlertSeverity severity,
+            @RequestParam(required = false) String ip,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            @RequestParam(defaultValue = "false") boolean includeDevice) {
+        try {
+            AlertCursorPage alerts = suricataService.getAlertsByCursor(cursor, size, severity, ip, includeTotal, includeDevice);
+            return ResponseEntity.ok(alerts);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Latest alerts, at most 1000, served from memory
+     */
     @GetMapping("/alerts/recent")
-    public ResponseEntity<List<Alert>> getRecentAlerts(
-            @RequestParam(defaultValue = "100") int limit) {
-        List<Alert> alerts = suricataService.getRecentAlerts(limit);
+    public ResponseEntity<List<AlertView>> getRecentAlerts(
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(required = false) AlertSeverity severity,
+            @RequestParam(required = false) String ip,
+            @RequestParam(defaultValue = "false") boolean includeDevice) {
+        List<AlertView> alerts = suricataService.getRecentAlerts(limit, severity, ip, includeDevice);
         return ResponseEntity.ok(alerts);
     }
 
+    /**
+     * Alerts from or to a network, e.g. /alerts/cidr/10.20.0.0/16, newest first and at most 1000
+     */
+    @GetMapping({"/alerts/cidr/{address}", "/alerts/cidr/{address}/{prefixLength}"})
+    public ResponseEntity<List<AlertView>> getAlertsByCidr(
+            @PathVariable String address,
+            @PathVariable(required = false) Integer prefixLength,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(defaultValue = "false") boolean includeDevice) {
+        try {
+            String cidr = prefixLength != null ? address + "/" + prefixLength : address;
+            return ResponseEntity.ok(suricataService.getAlertsByCidr(cidr, since, limit, includeDevice));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/alerts/{id}")
     public ResponseEntity<Alert> getAlertById(@PathVariable Long id) {
         Alert alert = suricataService.getAlertById(id);
         return ResponseEntity.ok(alert);
     }
 
+    @GetMapping(value = "/alerts/{id}/payload", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<String> getAlertPayload(@PathVariable Long id) {
+        String payload = suricataService.getAlertPayload(id);
+        return payload != null ? ResponseEntity.ok(payload) : ResponseEntity.notFound().build();
+    }
+
     @GetMapping("/alerts/severity/{severity}")
-    public ResponseEntity<List<Alert>> getAlertsBySeverity(@PathVariable AlertSeverity severity) {
-        List<Alert> alerts = suricataService.getAlertsBySeverity(severity);
+    public ResponseEntity<List<AlertView>> getAlertsBySeverity(
+            @PathVariable AlertSeverity severity,
+            @RequestParam(defaultValue = "false") boolean includeDevice) {
+        List<AlertView> alerts = suricataService.getAlertsBySeverity(severity, includeDevice);
         return ResponseEntity.ok(alerts);
     }
 
     @GetMapping("/alerts/ip/{ipAddress}")
-    public ResponseEntity<List<Alert>> getAlertsByIp(@PathVariable String ipAddress) {
-        List<Alert> alerts = suricataService.getAlertsByIp(ipAddress);
+    public ResponseEntity<List<AlertView>> getAlertsByIp(
+            @PathVariable String ipAddress,
+            @RequestParam(defaultValue = "false") boolean includeDevice) {
+        List<AlertView> alerts = suricataService.getAlertsByIp(ipAddress, includeDevice);
         return ResponseEntity.ok(alerts);
     }
 
+    /**
+     * Alerts from {@code start} inclusive to {@code end} exclusive, newest first
+     */
     @GetMapping("/alerts/timerange")
-    public ResponseEntity<List<Alert>> getAlertsByTimeRange(
+    public ResponseEntity<List<AlertView>> getAlertsByTimeRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
-        List<Alert> alerts = suricataService.getAlertsByTimeRange(start, end);
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(defaultValue = "false") boolean includeDevice) {
+        List<AlertView> alerts = suricataService.getAlertsByTimeRange(start, end, includeDevice);
         return ResponseEntity.ok(alerts);
     }
 
+    /**
+     * Streams the alerts from {@code start} inclusive to {@code end} exclusive as NDJSON, one
+     * alert per line, optionally gzipped
+     */
+    @GetMapping("/alerts/export")
+    public ResponseEntity<StreamingResponseBody> exportAlerts(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(required = false) AlertSeverity severity,
+            @RequestParam(required = false) String ip,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        ObjectWriter writer = objectMapper.writerFor(Alert.class);
+
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, EXPORT_BUFFER_SIZE) : out;
+            try (OutputStream stream = new BufferedOutputStream(target, EXPORT_BUFFER_SIZE)) {
+                suricataService.exportAlerts(start, end, severity, ip, alert -> {
+                    try {
+                        stream.write(writer.writeValueAsBytes(alert));
+                        stream.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+
+        String filename = gzip ? "alerts.ndjson.gz" : "alerts.ndjson";
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+
     @GetMapping("/statistics")
     public ResponseEntity<AlertStatistics> getStatistics(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since) {
-        LocalDateTime sinceTime = since != null ? since : LocalDateTime.now().minusDays(7);
+        // Minute-aligned default so that repeated polls share a cache entry
+        LocalDateTime sinceTime = since != null ? since : LocalDateTime.now(ZoneOffset.UTC).minusDays(7).truncatedTo(ChronoUnit.MINUTES);
         AlertStatistics stats = suricataService.getStatistics(sinceTime);
         return ResponseEntity.ok(stats);
     }
 
-    @GetMapping(value = "/alerts/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter streamAlerts() {
-        SseEmitter emitter = new SseEmitter(Long.MAX_VALUE);
-
-        emitters.add(emitter);
+    /**
+     * Top source IPs, destination IPs or signatures; exact=true runs a GROUP BY instead
+     */
+    @GetMapping("/top/{dimension}")
+    public ResponseEntity<AlertTopK> getTopK(
+            @PathVariable AlertDimension dimension,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "false") boolean exact) {
+        LocalDateTime sinceTime = since != null ? since : LocalDateTime.now(ZoneOffset.UTC).minusDays(7);
+        AlertTopK topK = suricataService.getTopK(dimension, sinceTime, limit, exact);
+        return ResponseEntity.ok(topK);
+    }
 
-        emitter.onCompletion(() -> emitters.remove(emitter));
-        emitter.onTimeout(() -> emitters.remove(emitter));
-        emitter.onError((e) -> emitters.remove(emitter));
+    /**
+     * Distinct source IPs, destination IPs and signatures, overall or for one signature
+     */
+    @GetMapping("/distinct")
+    public ResponseEntity<AlertDistinctCounts> getDistinctCounts(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestParam(required = false) String signature,
+            @RequestParam(defaultValue = "false") boolean exact) {
+        LocalDateTime sinceTime = since != null ? since : LocalDateTime.now(ZoneOffset.UTC).minusDays(7);
+        return ResponseEntity.ok(suricataService.getDistinctCounts(sinceTime, signature, exact));
+    }
 
-        return emitter;
+    @GetMapping("/distinct/hourly")
+    public ResponseEntity<List<AlertDistinctCounts>> getHourlyDistinctCounts(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestParam(required = false) String signature) {
+        LocalDateTime sinceTime = since != null ? since : LocalDateTime.now(ZoneOffset.UTC).minusDays(1);
+        return ResponseEntity.ok(suricataService.getHourlyDistinctCounts(sinceTime, signature));
     }
 
     /**
-     * This method can be called by the log monitor to broadcast new alerts
+     * Alert counts per interval (e.g. 5m, 1h, 1d) for charts, read from the rollups. Older
+     * rollups are compacted per hour, then per day; an interval finer than that over their
+     * part of the range is rejected.
      */
-    public void broadcastAlert(Alert alert) {
-        List<SseEmitter> deadEmitters = new CopyOnWriteArrayList<>();
-
-        emitters.forEach(emitter -> {
-            try {
-                emitter.send(SseEmitter.event()
-                        .name("alert")
-                        .data(alert));
-            } catch (Exception e) {
-                deadEmitters.add(emitter);
-            }
-        });
+    @GetMapping("/histogram")
+    public ResponseEntity<AlertHistogram> getHistogram(
+            @RequestParam(defaultValue = "1h") String interval,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime until,
+            @RequestParam(required = false) AlertSeverity severity,
+            @RequestParam(required = false) String category) {
+        LocalDateTime untilTime = until != null ? until : LocalDateTime.now(ZoneOffset.UTC);
+        LocalDateTime sinceTime = since != null ? since : untilTime.minusDays(1);
+        try {
+            AlertHistogram histogram = suricataService.getHistogram(
+                    DurationStyle.detectAndParse(interval), sinceTime, untilTime, severity, category);
+            return ResponseEntity.ok(histogram);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/sensors")
+    public ResponseEntity<Map<String, Long>> getAlertsBySensor(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since) {
+        LocalDateTime sinceTime = since != null ? since : LocalDateTime.now(ZoneOffset.UTC).minusHours(1).truncatedTo(ChronoUnit.MINUTES);
+        AlertStatistics stats = suricataService.getStatistics(sinceTime);
+        return ResponseEntity.ok(stats.getAlertsBySensor());
+    }
 
-        emitters.removeAll(deadEmitters);
+    /**
+     * Live alerts as server-sent events, optionally filtered by minimum severity, a source
+     * or destination address or CIDR block, and category. With batchInterval (ms) alerts
+     * arrive as frames of up to batchSize, and a client that falls behind gets per-signature
+     * summaries instead.
+     */
+    @GetMapping(value = "/alerts/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamAlerts(
+            @RequestParam(required = false) AlertSeverity minSeverity,
+            @RequestParam(required = false) String ip,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "DROP_OLDEST") AlertStreamDispatcher.OverflowPolicy overflow,
+            @RequestParam(defaultValue = "0") long batchInterval,
+            @RequestParam(defaultValue = "100") int batchSize) {
+        try {
+            AlertStreamFilter filter = new AlertStreamFilter(minSeverity, ip != null ? CidrBlock.parse(ip) : null, category);
+            return ResponseEntity.ok(streamDispatcher.subscribe(filter, overflow, batchInterval, batchSize));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
     }
 }